@@ -0,0 +1,158 @@
+package interpreter;
+
+import model.CompactGraph;
+import model.GraphIndex;
+import model.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full runs of every algorithm, stepped through the snapshot classes the way the animations step them.
+ * Searches have no end node, so they expand everything reachable from the start. The point-to-point searches run
+ * from the first node to the last; generated graphs have no coordinates, so A* runs without a heuristic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlgorithmBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int connections;
+
+    @Param({"RANDOM", "GRID", "SCALE_FREE", "COMPLETE"})
+    GraphGenerator shape;
+
+    GraphIndex index;
+    Node start;
+    Node end;
+
+    @Setup
+    public void setUp() {
+        CompactGraph graph = shape.generate(connections, 42);
+        index = GraphIndex.of(graph);
+        start = index.node(0);
+        end = index.node(index.size() - 1);
+    }
+
+    @Benchmark
+    public int bfs() {
+        return search(new BfsSnapshot(index, start, null));
+    }
+
+    @Benchmark
+    public int parallelBfs() {
+        ParallelBfsSnapshot bfsSnapshot = new ParallelBfsSnapshot(index, start);
+        int steps = 0;
+        while (!bfsSnapshot.isDone()) {
+            steps += bfsSnapshot.getFrontierSize();
+            bfsSnapshot.step();
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int dfs() {
+        return search(new DfsSnapshot(index, start, null));
+    }
+
+    private int search(SearchSnapshot searchSnapshot) {
+        int steps = 0;
+        while (!searchSnapshot.isDone()) {
+            searchSnapshot.step();
+            steps++;
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int dijkstra() {
+        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(index, start);
+        int steps = 0;
+        while (!dijkstraSnapshot.isDone()) {
+            dijkstraSnapshot.step();
+            steps++;
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int bidirectionalBfs() {
+        return path(new BidirectionalBfsSnapshot(index, start, end));
+    }
+
+    @Benchmark
+    public int bidirectionalDijkstra() {
+        return path(new BidirectionalDijkstraSnapshot(index, start, end));
+    }
+
+    @Benchmark
+    public int aStar() {
+        return path(new AStarSnapshot(index, start, end));
+    }
+
+    private int path(PathSnapshot pathSnapshot) {
+        int steps = 0;
+        while (!pathSnapshot.isDone()) {
+            pathSnapshot.step();
+            steps++;
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int deltaStepping() {
+        DeltaSteppingSnapshot deltaSteppingSnapshot = new DeltaSteppingSnapshot(index, start);
+        int steps = 0;
+        while (!deltaSteppingSnapshot.isDone()) {
+            deltaSteppingSnapshot.step();
+            steps += deltaSteppingSnapshot.getSettledSize();
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int prim() {
+        PrimSnapshot primSnapshot = new PrimSnapshot(index, start);
+        int steps = 0;
+        while (!primSnapshot.isDone()) {
+            primSnapshot.step();
+            steps++;
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int kruskal() {
+        KruskalSnapshot kruskalSnapshot = new KruskalSnapshot(index);
+        int steps = 0;
+        while (!kruskalSnapshot.isDone()) {
+            kruskalSnapshot.step();
+            steps++;
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int boruvka() {
+        BoruvkaSnapshot boruvkaSnapshot = new BoruvkaSnapshot(index);
+        int steps = 0;
+        while (!boruvkaSnapshot.isDone()) {
+            boruvkaSnapshot.step();
+            steps++;
+        }
+        return steps;
+    }
+}
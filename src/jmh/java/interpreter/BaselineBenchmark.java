@@ -0,0 +1,141 @@
+package interpreter;
+
+import model.CompactGraph;
+import model.Edge;
+import model.Graph;
+import model.GraphIndex;
+import model.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The original BFS and Dijkstra's, which scan the whole edge list for the neighbours of every node and keep their
+ * state in hash maps, next to the indexed snapshots that replaced them. Both sides start from the graph value class,
+ * so the indexed runs include building the index. The baseline is O(V * E), hence the small sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaselineBenchmark {
+    @Param({"1000", "10000"})
+    int connections;
+
+    @Param({"RANDOM", "GRID", "SCALE_FREE", "COMPLETE"})
+    GraphGenerator shape;
+
+    Graph graph;
+    Node start;
+
+    @Setup
+    public void setUp() {
+        CompactGraph compactGraph = shape.generate(connections, 42);
+        graph = Graph.of(new ArrayList<>(compactGraph.nodes()), new ArrayList<>(compactGraph.edges()));
+        start = compactGraph.node(0);
+    }
+
+    @Benchmark
+    public int baselineBfs() {
+        Queue<Node> toTraverse = new LinkedList<>();
+        Set<Node> visited = new HashSet<>();
+        toTraverse.add(start);
+        int steps = 0;
+        while (!toTraverse.isEmpty()) {
+            Node current = toTraverse.remove();
+            if (visited.add(current)) {
+                toTraverse.addAll(accessibleFrom(current, graph.getEdges()));
+                steps++;
+            }
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int indexedBfs() {
+        BfsSnapshot bfsSnapshot = new BfsSnapshot(GraphIndex.of(graph), start, null);
+        int steps = 0;
+        while (!bfsSnapshot.isDone()) {
+            bfsSnapshot.step();
+            steps++;
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int baselineDijkstra() {
+        Map<Node, Double> dist = new HashMap<>();
+        List<Edge> path = new ArrayList<>();
+        List<Node> toTraverse = new ArrayList<>();
+        for (Node node : graph.getNodes()) {
+            dist.put(node, Double.MAX_VALUE);
+            toTraverse.add(node);
+        }
+        dist.put(start, 0.0);
+        int steps = 0;
+        while (!toTraverse.isEmpty()) {
+            Node current = toTraverse.stream()
+                    .min((node1, node2) -> Double.compare(dist.get(node1), dist.get(node2)))
+                    .get();
+            toTraverse.remove(current);
+            for (Edge edge : outgoingEdges(current, graph.getEdges())) {
+                double alt = dist.get(current) + edge.getWeight();
+                if (alt < dist.get(edge.getEnd())) {
+                    dist.put(edge.getEnd(), alt);
+                    path.stream()
+                            .filter(existingEdge -> existingEdge.getEnd().equals(edge.getEnd()))
+                            .findFirst()
+                            .ifPresent(path::remove);
+                    path.add(edge);
+                }
+            }
+            steps++;
+        }
+        return steps + path.size();
+    }
+
+    @Benchmark
+    public int indexedDijkstra() {
+        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(GraphIndex.of(graph), start);
+        int steps = 0;
+        while (!dijkstraSnapshot.isDone()) {
+            dijkstraSnapshot.step();
+            steps++;
+        }
+        return steps + dijkstraSnapshot.getPath().size();
+    }
+
+    private static List<Node> accessibleFrom(Node begin, List<Edge> edges) {
+        return edges.stream()
+                .filter(edge -> edge.getStart().equals(begin))
+                .map(Edge::getEnd)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Edge> outgoingEdges(Node begin, List<Edge> edges) {
+        return edges.stream()
+                .filter(edge -> edge.getStart().equals(begin))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,162 @@
+package interpreter;
+
+import model.CompactGraph;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Undirected weighted graphs of a given shape for the benchmarks. Every connection is stored as a pair of edges
+ * with the same integer weight, so each graph suits every algorithm, Prim's and Kruskal's included. Shapes are sized
+ * by their number of connections rather than nodes so that they are comparable.
+ */
+public enum GraphGenerator {
+    /**
+     * A random spanning tree, topped up with uniformly random connections; about four per node
+     */
+    RANDOM {
+        @Override
+        void connect(Connector connector, int connections) {
+            int nodes = Math.max(16, connections / 4);
+            connector.nodes(nodes);
+            for (int node = 1; node < nodes; node++) {
+                connector.connect(node, connector.random.nextInt(node));
+            }
+            int target = (int) Math.min(connections, (long) nodes * (nodes - 1) / 2);
+            while (connector.count < target) {
+                connector.connect(connector.random.nextInt(nodes), connector.random.nextInt(nodes));
+            }
+        }
+    },
+    /**
+     * A square lattice where each node connects to its right and lower neighbours
+     */
+    GRID {
+        @Override
+        void connect(Connector connector, int connections) {
+            int side = Math.max(2, (int) Math.sqrt(connections / 2.0));
+            connector.nodes(side * side);
+            for (int row = 0; row < side; row++) {
+                for (int column = 0; column < side; column++) {
+                    int node = row * side + column;
+                    if (column + 1 < side) {
+                        connector.connect(node, node + 1);
+                    }
+                    if (row + 1 < side) {
+                        connector.connect(node, node + side);
+                    }
+                }
+            }
+        }
+    },
+    /**
+     * Barabasi-Albert preferential attachment: each new node connects to four existing nodes picked in proportion
+     * to their degree, which gives a few very high degree hubs
+     */
+    SCALE_FREE {
+        @Override
+        void connect(Connector connector, int connections) {
+            int links = 4;
+            int nodes = Math.max(links + 1, connections / links);
+            connector.nodes(nodes);
+            int[] endpoints = new int[2 * (links * (links + 1) / 2 + (nodes - links - 1) * links)];
+            int endpointCount = 0;
+            for (int a = 0; a <= links; a++) {
+                for (int b = a + 1; b <= links; b++) {
+                    connector.connect(a, b);
+                    endpoints[endpointCount++] = a;
+                    endpoints[endpointCount++] = b;
+                }
+            }
+            for (int node = links + 1; node < nodes; node++) {
+                int linked = 0;
+                int attached = endpointCount;
+                while (linked < links) {
+                    // endpoints added for this node sit past attached, so they are never picked
+                    int target = endpoints[connector.random.nextInt(attached)];
+                    if (connector.connect(node, target)) {
+                        endpoints[endpointCount++] = node;
+                        endpoints[endpointCount++] = target;
+                        linked++;
+                    }
+                }
+            }
+        }
+    },
+    /**
+     * Every pair of nodes connected
+     */
+    COMPLETE {
+        @Override
+        void connect(Connector connector, int connections) {
+            int nodes = Math.max(2, (int) ((1 + Math.sqrt(1 + 8.0 * connections)) / 2));
+            connector.nodes(nodes);
+            for (int a = 0; a < nodes; a++) {
+                for (int b = a + 1; b < nodes; b++) {
+                    connector.connect(a, b);
+                }
+            }
+        }
+    };
+
+    abstract void connect(Connector connector, int connections);
+
+    /**
+     * Generates a graph of this shape with about the given number of connections, i.e. twice as many edges
+     */
+    public CompactGraph generate(int connections, long seed) {
+        Connector connector = new Connector(new Random(seed));
+        connect(connector, connections);
+        return connector.builder.build();
+    }
+
+    /**
+     * Renders a graph made by {@link #generate} as a program, writing each connection as one {@code <->} edge
+     */
+    public static String program(String algorithm, CompactGraph graph, int start, int end) {
+        StringBuilder program = new StringBuilder("{do ").append(algorithm).append(" on {graph {");
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            program.append(graph.node(graph.declared(i)).getName()).append(' ');
+        }
+        program.append("} {");
+        for (int e = 0; e < graph.edgeCount(); e += 2) {
+            program.append('{').append(graph.node(graph.start(e)).getName())
+                    .append(" <-> ").append(graph.node(graph.end(e)).getName())
+                    .append(' ').append((int) graph.weight(e)).append("} ");
+        }
+        return program.append("}} from ").append(graph.node(start).getName())
+                .append(" to ").append(graph.node(end).getName()).append('}').toString();
+    }
+
+    static class Connector {
+        final Random random;
+        final CompactGraph.Builder builder = CompactGraph.builder();
+        final Set<Long> connected = new HashSet<>();
+        int count = 0;
+
+        Connector(Random random) {
+            this.random = random;
+        }
+
+        void nodes(int nodes) {
+            for (int node = 0; node < nodes; node++) {
+                builder.declare(builder.intern("N" + node));
+            }
+        }
+
+        /**
+         * Connects the two nodes both ways unless they are the same node or already connected
+         */
+        boolean connect(int a, int b) {
+            if (a == b || !connected.add((long) Math.min(a, b) << 32 | Math.max(a, b))) {
+                return false;
+            }
+            double weight = 1 + random.nextInt(100);
+            builder.addEdge(a, b, weight);
+            builder.addEdge(b, a, weight);
+            count++;
+            return true;
+        }
+    }
+}
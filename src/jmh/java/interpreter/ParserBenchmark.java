@@ -0,0 +1,61 @@
+package interpreter;
+
+import model.CompactGraph;
+import model.Demo;
+import model.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.Parser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing time of generated programs of increasing size
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    int connections;
+
+    @Param({"RANDOM", "SCALE_FREE"})
+    GraphGenerator shape;
+
+    String program;
+    String graph;
+
+    @Setup
+    public void setUp() {
+        CompactGraph compact = shape.generate(connections, 42);
+        program = GraphGenerator.program("DIJKSTRAS", compact, 0, compact.nodeCount() - 1);
+        graph = program.substring(program.indexOf("{graph"), program.lastIndexOf(" from "));
+    }
+
+    @Benchmark
+    public Demo parse() {
+        return Parser.parse(program);
+    }
+
+    @Benchmark
+    public Demo parseParallel() {
+        return Parser.parseParallel(program);
+    }
+
+    @Benchmark
+    public Graph parseGraph() {
+        return Parser.parseGraph(graph);
+    }
+}
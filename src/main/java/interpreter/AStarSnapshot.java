@@ -0,0 +1,102 @@
+package interpreter;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import model.Demo;
+import model.GraphIndex;
+import model.Node;
+
+import java.util.Arrays;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AStarSnapshot extends PathSnapshot {
+    /*
+        A* search:
+            tl;dr Like Dijkstra's but the priority queue is path cost plus a guess of the cost left to the end,
+            so nodes in the direction of the end get settled first
+    */
+    Heuristic heuristic;
+    double[] dist; // indexed by node id
+    int[] predecessors; // slot of the edge that reached each node, -1 if none
+    boolean[] settled;
+    IndexedMinHeap toTraverse; // keyed by dist plus the heuristic's estimate
+
+    /**
+     * Uses the node coordinates in the program as the heuristic
+     */
+    public AStarSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public AStarSnapshot(GraphIndex index, Node start, Node end) {
+        this(index, start, end, Heuristic.euclidean(index));
+    }
+
+    public AStarSnapshot(GraphIndex index, Node start, Node end, Heuristic heuristic) {
+        super(index, start, end);
+        requireWeights(index, "A*");
+        // without an end there is nothing to aim for, so search everything like Dijkstra's
+        this.heuristic = target == -1 ? Heuristic.NONE : heuristic;
+        dist = new double[index.size()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        predecessors = new int[index.size()];
+        Arrays.fill(predecessors, -1);
+        settled = new boolean[index.size()];
+        toTraverse = new IndexedMinHeap(index.size());
+        dist[source] = 0.0;
+        toTraverse.push(source, estimate(source));
+    }
+
+    private double estimate(int id) {
+        return this.heuristic.estimate(id, target);
+    }
+
+    @Override
+    void expandNext() {
+        int id = toTraverse.pop();
+        settled[id] = true;
+        expand(id);
+        if (id == target) {
+            done = true;
+            return;
+        }
+        for (int slot = index.begin(id); slot < index.end(id); slot++) {
+            int next = index.target(slot);
+            double alt = dist[id] + index.weight(slot);
+            if (alt < dist[next]) {
+                if (predecessors[next] != -1) {
+                    remove(predecessors[next]);
+                }
+                predecessors[next] = slot;
+                add(slot);
+                dist[next] = alt;
+                // a heuristic that is admissible but not consistent can find a shorter way to a settled node,
+                // which then has to be settled again
+                settled[next] = false;
+                toTraverse.push(next, alt + estimate(next));
+            }
+        }
+        done = toTraverse.isEmpty();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return toTraverse.size();
+    }
+
+    @Override
+    public double getDistance() {
+        return target == -1 || !settled[target] ? Double.POSITIVE_INFINITY : dist[target];
+    }
+
+    @Override
+    int[] getPathSlots() {
+        if (getDistance() == Double.POSITIVE_INFINITY) {
+            return new int[0];
+        }
+        int[] path = new int[forwardLength(predecessors, target)];
+        fillForward(path, path.length, predecessors, target);
+        return path;
+    }
+}
@@ -1,14 +1,42 @@
 package interpreter;
 
+import model.Demo;
+import model.GraphIndex;
 import model.Node;
 
-import java.util.LinkedList;
-import java.util.Queue;
+public class BfsSnapshot extends SearchSnapshot {
+    // nodes are marked visited as they are queued, so the queue never holds a node twice
+    // and visits them in the same order as marking them when they are dequeued
+    int head = 0;
+    int tail = 0;
 
-public class BfsSnapshot extends SearchSnapshot<Queue<Node>> {
-    public BfsSnapshot() {
-        toTraverse = new LinkedList<>();
-        nextNodeProvider = toTraverse::remove;
-        nodeAdder = toTraverse::add;
+    public BfsSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public BfsSnapshot(GraphIndex index, Node start, Node end) {
+        super(index, end, index.size());
+        int startId = index.id(start);
+        if (startId != -1) {
+            add(startId);
+        }
+    }
+
+    @Override
+    int next() {
+        return head == tail ? -1 : toTraverse[head++];
+    }
+
+    @Override
+    void add(int id) {
+        if (!visited[id]) {
+            visited[id] = true;
+            toTraverse[tail++] = id;
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        return tail - head;
     }
 }
@@ -0,0 +1,142 @@
+package interpreter;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import model.Demo;
+import model.GraphIndex;
+import model.Node;
+
+import java.util.Arrays;
+
+// Ignores edge weights, the shortest path is the one with the fewest edges
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BidirectionalBfsSnapshot extends PathSnapshot {
+    /*
+        Bidirectional BFS:
+            tl;dr BFS forward from the start and backward (along incoming edges) from the end until they meet
+            Each side expands a whole level at a time, always the side with the smaller frontier, so both
+            searches stay about half as deep as a single BFS would go
+    */
+    int[] forwardDepth; // indexed by node id, -1 if not seen yet
+    int[] backwardDepth;
+    int[] forwardParents; // slot of the edge that reached each node from the start, -1 if none
+    int[] backwardParents; // slot of the edge leading from each node towards the end, -1 if none
+    int[] forwardQueue;
+    int[] backwardQueue;
+    int forwardHead, forwardTail;
+    int backwardHead, backwardTail;
+    boolean forward = true; // side whose level is being expanded
+    int levelEnd; // queue position where the level being expanded ends
+    int best = Integer.MAX_VALUE; // edges on the shortest path seen so far
+    int meeting = -1; // slot of the edge joining the two searches on that path
+
+    public BidirectionalBfsSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public BidirectionalBfsSnapshot(GraphIndex index, Node start, Node end) {
+        super(index, start, end);
+        forwardDepth = new int[index.size()];
+        backwardDepth = new int[index.size()];
+        Arrays.fill(forwardDepth, -1);
+        Arrays.fill(backwardDepth, -1);
+        forwardParents = new int[index.size()];
+        backwardParents = new int[index.size()];
+        Arrays.fill(forwardParents, -1);
+        Arrays.fill(backwardParents, -1);
+        forwardQueue = new int[index.size()];
+        backwardQueue = new int[index.size()];
+        if (target == -1 || source == target) {
+            // nothing to meet, or already met
+            best = target == -1 ? Integer.MAX_VALUE : 0;
+            done = true;
+            return;
+        }
+        forwardDepth[source] = 0;
+        forwardQueue[forwardTail++] = source;
+        backwardDepth[target] = 0;
+        backwardQueue[backwardTail++] = target;
+        levelEnd = forwardTail;
+    }
+
+    @Override
+    void expandNext() {
+        if (forward) {
+            int id = forwardQueue[forwardHead++];
+            expand(id);
+            for (int slot = index.begin(id); slot < index.end(id); slot++) {
+                int next = index.target(slot);
+                if (forwardDepth[next] == -1) {
+                    forwardDepth[next] = forwardDepth[id] + 1;
+                    forwardParents[next] = slot;
+                    forwardQueue[forwardTail++] = next;
+                    add(slot);
+                }
+                if (backwardDepth[next] != -1 && forwardDepth[id] + 1 + backwardDepth[next] < best) {
+                    best = forwardDepth[id] + 1 + backwardDepth[next];
+                    meeting = slot;
+                }
+            }
+        } else {
+            int id = backwardQueue[backwardHead++];
+            expand(id);
+            for (int i = index.incomingBegin(id); i < index.incomingEnd(id); i++) {
+                int slot = index.incomingSlot(i);
+                int previous = index.source(slot);
+                if (backwardDepth[previous] == -1) {
+                    backwardDepth[previous] = backwardDepth[id] + 1;
+                    backwardParents[previous] = slot;
+                    backwardQueue[backwardTail++] = previous;
+                    add(slot);
+                }
+                if (forwardDepth[previous] != -1 && forwardDepth[previous] + 1 + backwardDepth[id] < best) {
+                    best = forwardDepth[previous] + 1 + backwardDepth[id];
+                    meeting = slot;
+                }
+            }
+        }
+        if ((forward ? forwardHead : backwardHead) == levelEnd) {
+            nextLevel();
+        }
+    }
+
+    /**
+     * Once a level is done, either the searches have met, and every shorter meeting would already have been seen,
+     * or the side with the smaller frontier expands its next level
+     */
+    private void nextLevel() {
+        int forwardSize = forwardTail - forwardHead;
+        int backwardSize = backwardTail - backwardHead;
+        if (meeting != -1 || forwardSize == 0 || backwardSize == 0) {
+            done = true;
+            return;
+        }
+        forward = forwardSize <= backwardSize;
+        levelEnd = forward ? forwardTail : backwardTail;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return (forwardTail - forwardHead) + (backwardTail - backwardHead);
+    }
+
+    @Override
+    public double getDistance() {
+        return best == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : best;
+    }
+
+    @Override
+    int[] getPathSlots() {
+        if (meeting == -1) {
+            return new int[0];
+        }
+        int forwardLength = forwardLength(forwardParents, index.source(meeting));
+        int[] path = new int[forwardLength + 1 + backwardLength(backwardParents, index.target(meeting))];
+        fillForward(path, forwardLength, forwardParents, index.source(meeting));
+        path[forwardLength] = meeting;
+        fillBackward(path, forwardLength + 1, backwardParents, index.target(meeting));
+        return path;
+    }
+}
@@ -0,0 +1,145 @@
+package interpreter;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import model.Demo;
+import model.GraphIndex;
+import model.Node;
+
+import java.util.Arrays;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BidirectionalDijkstraSnapshot extends PathSnapshot {
+    /*
+        Bidirectional Dijkstra's algorithm:
+            tl;dr Dijkstra's forward from the start and backward (along incoming edges) from the end, settling
+            whichever side has the closer node. Every edge seen by both searches gives a candidate path; the best
+            one is final once the two closest unsettled distances add up to at least its length
+    */
+    double[] forwardDist; // indexed by node id
+    double[] backwardDist;
+    int[] forwardPredecessors; // slot of the edge that reached each node from the start, -1 if none
+    int[] backwardSuccessors; // slot of the edge leading from each node towards the end, -1 if none
+    boolean[] forwardSettled;
+    boolean[] backwardSettled;
+    IndexedMinHeap forwardQueue;
+    IndexedMinHeap backwardQueue;
+    double best = Double.POSITIVE_INFINITY; // length of the shortest path seen so far
+    int meeting = -1; // node id where that path crosses from the forward to the backward tree
+
+    public BidirectionalDijkstraSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public BidirectionalDijkstraSnapshot(GraphIndex index, Node start, Node end) {
+        super(index, start, end);
+        requireWeights(index, "Bidirectional Dijkstra's Algorithm");
+        forwardDist = new double[index.size()];
+        backwardDist = new double[index.size()];
+        Arrays.fill(forwardDist, Double.POSITIVE_INFINITY);
+        Arrays.fill(backwardDist, Double.POSITIVE_INFINITY);
+        forwardPredecessors = new int[index.size()];
+        backwardSuccessors = new int[index.size()];
+        Arrays.fill(forwardPredecessors, -1);
+        Arrays.fill(backwardSuccessors, -1);
+        forwardSettled = new boolean[index.size()];
+        backwardSettled = new boolean[index.size()];
+        forwardQueue = new IndexedMinHeap(index.size());
+        backwardQueue = new IndexedMinHeap(index.size());
+        if (target == -1) {
+            done = true;
+            return;
+        }
+        forwardDist[source] = 0.0;
+        forwardQueue.push(source, 0.0);
+        backwardDist[target] = 0.0;
+        backwardQueue.push(target, 0.0);
+        if (source == target) {
+            best = 0.0;
+            meeting = source;
+            done = true;
+        }
+    }
+
+    @Override
+    void expandNext() {
+        if (forwardQueue.peekKey() <= backwardQueue.peekKey()) {
+            int id = forwardQueue.pop();
+            forwardSettled[id] = true;
+            expand(id);
+            for (int slot = index.begin(id); slot < index.end(id); slot++) {
+                int next = index.target(slot);
+                if (forwardSettled[next]) {
+                    continue;
+                }
+                double alt = forwardDist[id] + index.weight(slot);
+                if (alt < forwardDist[next]) {
+                    replace(forwardPredecessors, next, slot);
+                    forwardDist[next] = alt;
+                    forwardQueue.push(next, alt);
+                }
+                meet(next);
+            }
+        } else {
+            int id = backwardQueue.pop();
+            backwardSettled[id] = true;
+            expand(id);
+            for (int i = index.incomingBegin(id); i < index.incomingEnd(id); i++) {
+                int slot = index.incomingSlot(i);
+                int previous = index.source(slot);
+                if (backwardSettled[previous]) {
+                    continue;
+                }
+                double alt = backwardDist[id] + index.weight(slot);
+                if (alt < backwardDist[previous]) {
+                    replace(backwardSuccessors, previous, slot);
+                    backwardDist[previous] = alt;
+                    backwardQueue.push(previous, alt);
+                }
+                meet(previous);
+            }
+        }
+        // no unsettled node on either side can be part of a shorter path any more
+        done = forwardQueue.isEmpty() || backwardQueue.isEmpty()
+                || forwardQueue.peekKey() + backwardQueue.peekKey() >= best;
+    }
+
+    private void replace(int[] tree, int id, int slot) {
+        if (tree[id] != -1) {
+            remove(tree[id]);
+        }
+        tree[id] = slot;
+        add(slot);
+    }
+
+    private void meet(int id) {
+        double length = forwardDist[id] + backwardDist[id];
+        if (length < best) {
+            best = length;
+            meeting = id;
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        return forwardQueue.size() + backwardQueue.size();
+    }
+
+    @Override
+    public double getDistance() {
+        return best;
+    }
+
+    @Override
+    int[] getPathSlots() {
+        if (meeting == -1) {
+            return new int[0];
+        }
+        int forwardLength = forwardLength(forwardPredecessors, meeting);
+        int[] path = new int[forwardLength + backwardLength(backwardSuccessors, meeting)];
+        fillForward(path, forwardLength, forwardPredecessors, meeting);
+        fillBackward(path, forwardLength, backwardSuccessors, meeting);
+        return path;
+    }
+}
@@ -0,0 +1,172 @@
+package interpreter;
+
+import lombok.Data;
+import model.Demo;
+import model.Edge;
+import model.GraphIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+// Undirected graph algorithm like Kruskal's, so every edge needs a matching reverse edge
+// Ignores demo.start() and demo.end() since every tree grows at once
+
+@Data
+public class BoruvkaSnapshot implements Snapshot {
+    /*
+        Boruvka's algorithm:
+            tl;dr Every tree picks its cheapest edge to another tree, and all of those edges join the forest at once
+            Each round at least halves the number of trees, so there are at most log V rounds, and both picking the
+            edges and joining the trees run in parallel on a fork-join pool
+
+        Edges are ordered by weight, then by the graph position of the earlier edge of each a->b, b->a pair, which
+        is the order Kruskal's algorithm takes them in. With every tie broken that way the minimum spanning forest is
+        unique, so the edges picked in a round can't close a cycle and the result is the forest Kruskal's finds.
+    */
+    private static final int NONE = -1;
+
+    GraphIndex index;
+    ForkJoinPool pool;
+    ConcurrentDisjointSets trees; // keyed by GraphIndex id, each tree's root is its smallest id
+    int[] reverses; // slot of the b->a edge matching the a->b edge in each slot
+    AtomicIntegerArray cheapest; // cheapest slot leaving each tree, keyed by its root, NONE if there is none yet
+    int[] roots; // roots of the trees left, ascending
+    int rootCount;
+    List<Edge> chosenEdges = new ArrayList<>(); // What eventually becomes the minimum spanning tree of the graph
+    int round = 0;
+    boolean canContinue = true;
+    TraceSink sink = TraceSink.NONE;
+
+    public BoruvkaSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()));
+    }
+
+    public BoruvkaSnapshot(GraphIndex index) {
+        this(index, ForkJoinPool.commonPool());
+    }
+
+    public BoruvkaSnapshot(GraphIndex index, ForkJoinPool pool) {
+        reverses = new int[index.edgeCount()];
+        for (int slot = 0; slot < index.edgeCount(); slot++) {
+            double weight = index.weight(slot);
+            if (Double.isNaN(weight)) {
+                throw new InterpreterException("Boruvka's Algorithm requires every edge to have a weight");
+            }
+            reverses[slot] = index.find(index.target(slot), index.source(slot), weight);
+            if (reverses[slot] == -1) {
+                throw new InterpreterException("Boruvka's Algorithm requires an undirected graph (bidirectional edges)");
+            }
+        }
+        this.index = index;
+        this.pool = pool;
+        this.trees = new ConcurrentDisjointSets(index.size());
+        this.cheapest = new AtomicIntegerArray(index.size());
+        this.roots = new int[index.size()];
+        for (int id = 0; id < index.size(); id++) {
+            cheapest.set(id, NONE);
+            roots[id] = id;
+        }
+        this.rootCount = index.size();
+    }
+
+    public int getNumTrees() {
+        return rootCount;
+    }
+
+    public boolean isDone() {
+        return rootCount <= 1 || index.edgeCount() == 0 || !canContinue;
+    }
+
+    /**
+     * Run one round: join every tree to another along its cheapest edge
+     */
+    public void step() {
+        if (isDone()) {
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, index.size()).parallel().forEach(this::offerEdges)).join();
+
+        int[] picked = new int[rootCount];
+        pool.submit(() -> IntStream.range(0, rootCount).parallel().forEach(i -> picked[i] = pick(roots[i]))).join();
+        pool.submit(() -> IntStream.range(0, rootCount).parallel().forEach(i -> {
+            if (picked[i] != NONE && !trees.union(index.source(picked[i]), index.target(picked[i]))) {
+                picked[i] = NONE; // only a duplicate edge can get here
+            }
+        })).join();
+
+        // add the edges in root order so every run shows the same steps
+        int treeSize = chosenEdges.size();
+        int remaining = 0;
+        for (int i = 0; i < rootCount; i++) {
+            if (picked[i] != NONE) {
+                addToTree(picked[i]);
+            }
+            cheapest.set(roots[i], NONE);
+            if (trees.isRoot(roots[i])) {
+                roots[remaining++] = roots[i];
+            }
+        }
+        rootCount = remaining;
+        round++;
+        if (chosenEdges.size() == treeSize) {
+            this.canContinue = false;
+        }
+    }
+
+    /**
+     * Offers every edge from the node to another tree as the cheapest edge of the node's tree
+     */
+    private void offerEdges(int id) {
+        int root = trees.find(id);
+        for (int slot = index.begin(id); slot < index.end(id); slot++) {
+            if (trees.find(index.target(slot)) != root) {
+                int current = cheapest.get(root);
+                while ((current == NONE || isCheaper(slot, current)) && !cheapest.compareAndSet(root, current, slot)) {
+                    current = cheapest.get(root);
+                }
+            }
+        }
+    }
+
+    private boolean isCheaper(int slot, int other) {
+        int compare = Double.compare(index.weight(slot), index.weight(other));
+        return compare < 0 || (compare == 0 && rank(slot) < rank(other));
+    }
+
+    /**
+     * Position in the graph of the earlier edge of the slot's a->b, b->a pair
+     */
+    private int rank(int slot) {
+        return Math.min(index.edgeId(slot), index.edgeId(reverses[slot]));
+    }
+
+    /**
+     * Returns the tree's cheapest edge, or NONE if it has none or the tree at its other end, having picked the same
+     * edge and the smaller root, joins the two instead. Runs before any tree is joined this round.
+     */
+    private int pick(int root) {
+        int slot = cheapest.get(root);
+        if (slot == NONE) {
+            return NONE;
+        }
+        int other = trees.find(index.target(slot));
+        return other < root && cheapest.get(other) == reverses[slot] ? NONE : slot;
+    }
+
+    /**
+     * Adds the edge and its reverse, the earlier of the two in the graph first, as Kruskal's algorithm does
+     */
+    private void addToTree(int slot) {
+        if (index.edgeId(reverses[slot]) < index.edgeId(slot)) {
+            slot = reverses[slot];
+        }
+        Edge edge = index.edge(slot);
+        this.chosenEdges.add(edge);
+        this.chosenEdges.add(Edge.of(edge.getEnd(), edge.getStart(), edge.getWeight()));
+        sink.edgeAdded(index.edgeId(slot));
+        sink.edgeAdded(index.edgeId(reverses[slot]));
+    }
+}
@@ -0,0 +1,56 @@
+package interpreter;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Disjoint-set forest over the ids 0..size-1 that any number of threads can find and union in at once.
+ *
+ * A root is only ever linked below a smaller id, with a compare-and-set, so concurrent unions can't make a cycle and
+ * each set's root is its smallest id. Finds halve the path as they go; those writes only ever point an id further up
+ * its own tree, so racing with them is harmless.
+ */
+class ConcurrentDisjointSets {
+    private final AtomicIntegerArray parents;
+
+    ConcurrentDisjointSets(int size) {
+        parents = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parents.set(i, i);
+        }
+    }
+
+    int find(int id) {
+        int parent = parents.get(id);
+        while (parent != id) {
+            int grandparent = parents.get(parent);
+            if (grandparent != parent) {
+                parents.compareAndSet(id, parent, grandparent);
+            }
+            id = parent;
+            parent = grandparent;
+        }
+        return id;
+    }
+
+    /**
+     * Merges the sets containing the two ids, returns false if they were already the same set
+     */
+    boolean union(int a, int b) {
+        while (true) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return false;
+            }
+            int low = Math.min(rootA, rootB);
+            int high = Math.max(rootA, rootB);
+            if (parents.compareAndSet(high, high, low)) {
+                return true;
+            }
+        }
+    }
+
+    boolean isRoot(int id) {
+        return parents.get(id) == id;
+    }
+}
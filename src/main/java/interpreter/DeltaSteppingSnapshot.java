@@ -0,0 +1,379 @@
+package interpreter;
+
+import lombok.Data;
+import model.Demo;
+import model.Edge;
+import model.GraphIndex;
+import model.Node;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+@Data
+public class DeltaSteppingSnapshot implements Snapshot {
+    /*
+        Delta-stepping:
+            tl;dr Dijkstra's algorithm with the queue coarsened into buckets of width delta, where the whole bucket
+            is relaxed at once in parallel
+            Light edges (weight <= delta) can land back in the bucket being settled, so they are relaxed over and
+            over until the bucket stops changing. Heavy edges always land in a later bucket, so they are relaxed once
+            per node when the bucket is done. A small delta does little work per bucket, like Dijkstra's; a large one
+            does more redundant relaxations, like Bellman-Ford, but in fewer and wider parallel passes.
+
+        Distances are lowered by compare-and-set on their bits, which order like the doubles for non-negative values,
+        and come out exactly as Dijkstra's. Predecessors are picked afterwards from the final distances the way
+        Dijkstra's picks them: the first edge, from the node it settles first, that gives the shortest distance.
+        With positive weights it settles in order of (distance, id), so the predecessors match it exactly.
+    */
+    private static final long INFINITY = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+
+    GraphIndex index;
+    ForkJoinPool pool;
+    double delta;
+    int startId;
+    int endId; // -1 to settle every reachable node
+    boolean done;
+    AtomicLongArray dist; // bits of the distance of each node id, +infinity until reached
+    TreeMap<Long, Bucket> buckets = new TreeMap<>(); // nodes whose distance fell into each bucket, not yet settled
+    int queueSize; // entries in all buckets, counting nodes listed again after moving to an earlier bucket
+    int[] settledIn; // number of the step that settled each node id, 0 if none has yet
+    int stepCount = 0;
+    int[] settled; // nodes settled by the last step, in order of (distance, id)
+    int settledSize;
+    int[] frontier; // nodes whose light edges the current pass relaxes
+    AtomicIntegerArray isTouched; // 1 for nodes lowered in the current pass and already listed in touched
+    int[] touched;
+    AtomicInteger touchedSize = new AtomicInteger();
+    TraceSink sink = TraceSink.NONE;
+
+    public DeltaSteppingSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public DeltaSteppingSnapshot(GraphIndex index, Node start) {
+        this(index, start, null);
+    }
+
+    public DeltaSteppingSnapshot(GraphIndex index, Node start, Node end) {
+        this(index, start, end, defaultDelta(index), ForkJoinPool.commonPool());
+    }
+
+    public DeltaSteppingSnapshot(GraphIndex index, Node start, double delta) {
+        this(index, start, null, delta, ForkJoinPool.commonPool());
+    }
+
+    public DeltaSteppingSnapshot(GraphIndex index, Node start, double delta, ForkJoinPool pool) {
+        this(index, start, null, delta, pool);
+    }
+
+    public DeltaSteppingSnapshot(GraphIndex index, Node start, Node end, double delta, ForkJoinPool pool) {
+        for (int slot = 0; slot < index.edgeCount(); slot++) {
+            double weight = index.weight(slot);
+            if (Double.isNaN(weight)) {
+                throw new InterpreterException("Delta-stepping requires every edge to have a weight");
+            }
+            if (weight < 0) {
+                throw new InterpreterException("Delta-stepping requires non-negative weights");
+            }
+        }
+        if (!(delta > 0)) {
+            throw new IllegalArgumentException("Delta must be positive, not " + delta);
+        }
+        this.index = index;
+        this.pool = pool;
+        this.delta = delta;
+        int size = index.size();
+        dist = new AtomicLongArray(size);
+        for (int id = 0; id < size; id++) {
+            dist.set(id, INFINITY);
+        }
+        settledIn = new int[size];
+        settled = new int[size];
+        frontier = new int[size];
+        isTouched = new AtomicIntegerArray(size);
+        touched = new int[size];
+        startId = index.id(start);
+        endId = end == null ? -1 : index.id(end);
+        if (startId != -1) {
+            dist.set(startId, Double.doubleToLongBits(0.0));
+            enqueue(0, startId);
+        }
+    }
+
+    /**
+     * The mean edge weight, or 1 if every edge weighs 0. A bucket then spans about one edge, which keeps the
+     * relaxations close to Dijkstra's while leaving a whole frontier to relax at once.
+     */
+    public static double defaultDelta(GraphIndex index) {
+        double sum = 0;
+        for (int slot = 0; slot < index.edgeCount(); slot++) {
+            sum += index.weight(slot);
+        }
+        return sum > 0 ? sum / index.edgeCount() : 1;
+    }
+
+    /**
+     * Settles the next non-empty bucket: relaxes light edges until no distance in it drops any further, then the
+     * heavy edges of every node it settled. The sink sees the last bucket left and the new one visited, then the end
+     * node found and the edges of the path to it chosen once it is settled.
+     */
+    public void step() {
+        if (done) {
+            return;
+        }
+        for (int i = 0; i < settledSize; i++) {
+            sink.nodeLeft(settled[i]);
+        }
+        settledSize = 0;
+        if (buckets.isEmpty()) {
+            done = true;
+            return;
+        }
+        long number = buckets.firstKey();
+        Bucket bucket = buckets.remove(number);
+        queueSize -= bucket.size;
+        stepCount++;
+        int frontierSize = 0;
+        for (int i = 0; i < bucket.size; i++) {
+            int id = bucket.ids[i];
+            // skip nodes that since moved to an earlier bucket, and repeats
+            if (bucketOf(dist(id)) == number && settledIn[id] != stepCount) {
+                settledIn[id] = stepCount;
+                settled[settledSize++] = id;
+                frontier[frontierSize++] = id;
+            }
+        }
+        while (frontierSize > 0) {
+            int count = relaxAll(frontier, frontierSize, true);
+            frontierSize = 0;
+            for (int i = 0; i < count; i++) {
+                int id = touched[i];
+                isTouched.set(id, 0);
+                long target = bucketOf(dist(id));
+                if (target == number) {
+                    if (settledIn[id] != stepCount) {
+                        settledIn[id] = stepCount;
+                        settled[settledSize++] = id;
+                    }
+                    frontier[frontierSize++] = id; // relaxed again from its lower distance
+                } else {
+                    enqueue(target, id);
+                }
+            }
+        }
+        int count = relaxAll(settled, settledSize, false);
+        for (int i = 0; i < count; i++) {
+            int id = touched[i];
+            isTouched.set(id, 0);
+            // a heavy edge always leaves the bucket, whatever the rounding
+            enqueue(Math.max(bucketOf(dist(id)), number + 1), id);
+        }
+        sortSettled();
+        for (int i = 0; i < settledSize; i++) {
+            sink.nodeVisited(settled[i]);
+        }
+        if (endId != -1 && settledIn[endId] == stepCount) {
+            done = true;
+            sink.nodeFound(endId);
+            int[] predecessors = getPredecessors();
+            for (int slot = predecessors[endId]; slot != -1; slot = predecessors[index.source(slot)]) {
+                sink.edgeChosen(index.edgeId(slot));
+            }
+        }
+    }
+
+    /**
+     * Relaxes the light or the heavy edges out of the nodes in parallel, returns how many nodes got closer; they
+     * are listed at the front of touched
+     */
+    private int relaxAll(int[] ids, int count, boolean light) {
+        touchedSize.set(0);
+        pool.submit(() -> IntStream.range(0, count).parallel().forEach(i -> relaxEdges(ids[i], light))).join();
+        return touchedSize.get();
+    }
+
+    private void relaxEdges(int id, boolean light) {
+        double from = dist(id);
+        for (int slot = index.begin(id); slot < index.end(id); slot++) {
+            double weight = index.weight(slot);
+            if ((weight <= delta) == light) {
+                int to = index.target(slot);
+                if (lower(to, from + weight) && isTouched.compareAndSet(to, 0, 1)) {
+                    touched[touchedSize.getAndIncrement()] = to;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lowers the node's distance, returns whether it was higher
+     */
+    private boolean lower(int id, double distance) {
+        long bits = Double.doubleToLongBits(distance);
+        long current = dist.get(id);
+        while (bits < current) {
+            if (dist.compareAndSet(id, current, bits)) {
+                return true;
+            }
+            current = dist.get(id);
+        }
+        return false;
+    }
+
+    private double dist(int id) {
+        return Double.longBitsToDouble(dist.get(id));
+    }
+
+    private long bucketOf(double distance) {
+        return (long) (distance / delta);
+    }
+
+    private void enqueue(long number, int id) {
+        buckets.computeIfAbsent(number, n -> new Bucket()).add(id);
+        queueSize++;
+    }
+
+    /**
+     * Stable merge sort of the settled nodes by distance, starting from id order
+     */
+    private void sortSettled() {
+        Arrays.sort(settled, 0, settledSize);
+        int[] buffer = new int[settledSize];
+        for (int width = 1; width < settledSize; width *= 2) {
+            for (int low = 0; low < settledSize - width; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, settledSize);
+                int left = low;
+                int right = middle;
+                for (int i = low; i < high; i++) {
+                    if (right >= high || (left < middle && dist(settled[left]) <= dist(settled[right]))) {
+                        buffer[i] = settled[left++];
+                    } else {
+                        buffer[i] = settled[right++];
+                    }
+                }
+                System.arraycopy(buffer, low, settled, low, high - low);
+            }
+        }
+    }
+
+    /**
+     * The nodes the last step settled, in the order Dijkstra's algorithm settles them when every weight is positive
+     */
+    public List<Node> getSettled() {
+        return new AbstractList<Node>() {
+            @Override
+            public Node get(int i) {
+                return index.node(settled[i]);
+            }
+
+            @Override
+            public int size() {
+                return settledSize;
+            }
+        };
+    }
+
+    public boolean isSettled(Node node) {
+        int id = index.id(node);
+        return id != -1 && settledIn[id] != 0;
+    }
+
+    public double getDist(Node node) {
+        int id = index.id(node);
+        return id == -1 ? Double.POSITIVE_INFINITY : dist(id);
+    }
+
+    /**
+     * Slot of the edge into each settled node on its shortest path, -1 for the start and nodes not settled yet; the
+     * same array {@link DijkstraSnapshot} ends up with. Picked from the final distances in O(V + E) on every call.
+     */
+    public int[] getPredecessors() {
+        int[] predecessors = new int[index.size()];
+        pool.submit(() -> IntStream.range(0, index.size()).parallel()
+                .forEach(id -> predecessors[id] = firstPredecessor(id))).join();
+
+        // nodes only reached over weight 0 edges from nodes just as far away: take them in breadth first order
+        // from the nodes that have a predecessor, so the predecessors still form a tree
+        int[] queue = new int[index.size()];
+        int head = 0;
+        int tail = 0;
+        for (int id = 0; id < index.size(); id++) {
+            if (predecessors[id] != -1 || id == startId) {
+                queue[tail++] = id;
+            }
+        }
+        while (head < tail) {
+            int id = queue[head++];
+            for (int slot = index.begin(id); slot < index.end(id); slot++) {
+                int to = index.target(slot);
+                if (predecessors[to] == -1 && to != startId && settledIn[to] != 0
+                        && dist(id) + index.weight(slot) == dist(to)) {
+                    predecessors[to] = slot;
+                    queue[tail++] = to;
+                }
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * The edge into a settled node from the closest, then lowest id, node that gives it its distance, taking the
+     * earliest such edge; -1 if there is none from a closer node
+     */
+    private int firstPredecessor(int id) {
+        if (id == startId || settledIn[id] == 0) {
+            return -1;
+        }
+        double distance = dist(id);
+        int best = -1;
+        for (int i = index.incomingBegin(id); i < index.incomingEnd(id); i++) {
+            int slot = index.incomingSlot(i);
+            int from = index.source(slot);
+            double fromDistance = dist(from);
+            if (fromDistance < distance && fromDistance + index.weight(slot) == distance
+                    && (best == -1 || fromDistance < dist(index.source(best))
+                    || (fromDistance == dist(index.source(best)) && from < index.source(best)))) {
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the edges of the shortest path found to the node, ordered from the node back to the start
+     */
+    public List<Edge> pathTo(Node node) {
+        int id = index.id(node);
+        if (id == -1 || settledIn[id] == 0) {
+            return Collections.emptyList();
+        }
+        int[] predecessors = getPredecessors();
+        List<Edge> edges = new ArrayList<>();
+        for (int slot = predecessors[id]; slot != -1; slot = predecessors[index.source(slot)]) {
+            edges.add(index.edge(slot));
+        }
+        return edges;
+    }
+
+    private static class Bucket {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * size);
+            }
+            ids[size++] = id;
+        }
+    }
+}
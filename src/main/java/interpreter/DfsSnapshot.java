@@ -1,13 +1,48 @@
 package interpreter;
 
+import model.Demo;
+import model.GraphIndex;
 import model.Node;
 
-import java.util.Stack;
+public class DfsSnapshot extends SearchSnapshot {
+    // a node pushed again before it is visited has to move to the top of the stack, so it can't be marked
+    // when pushed; copies left below are skipped once it has been visited. Each node is expanded at most once,
+    // so the stack never holds more than the start plus one entry per edge.
+    int size = 0;
 
-public class DfsSnapshot extends SearchSnapshot<Stack<Node>> {
-    public DfsSnapshot() {
-        toTraverse = new Stack<>();
-        nextNodeProvider = toTraverse::pop;
-        nodeAdder = toTraverse::push;
+    public DfsSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public DfsSnapshot(GraphIndex index, Node start, Node end) {
+        super(index, end, index.edgeCount() + 1);
+        int startId = index.id(start);
+        if (startId != -1) {
+            add(startId);
+        }
+    }
+
+    @Override
+    int next() {
+        while (size > 0) {
+            int id = toTraverse[--size];
+            if (!visited[id]) {
+                visited[id] = true;
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    void add(int id) {
+        if (!visited[id]) {
+            toTraverse[size++] = id;
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        return size;
     }
 }
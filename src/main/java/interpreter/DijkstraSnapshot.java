@@ -3,45 +3,154 @@ package interpreter;
 import lombok.Data;
 import model.Demo;
 import model.Edge;
+import model.GraphIndex;
 import model.Node;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 @Data
 public class DijkstraSnapshot implements Snapshot {
-    Map<Node, Double> dist = new HashMap<>();
-    List<Edge> path = new ArrayList<>();
-    List<Node> toTraverse = new ArrayList<>();
-    Node current;
+    GraphIndex index;
+    double[] dist; // indexed by node id
+    int[] predecessors; // slot in index of the edge that reached each node id, -1 if none yet
+    boolean[] settled;
+    IndexedMinHeap toTraverse;
+    int currentId = -1; // node settled last, -1 before the first
+    int[] addedSlots; // slots of the edges the last step added to the tree, in the order it added them
+    int addedCount;
+    int[] removedSlots; // slots of the edges those replaced, in the same order
+    int removedCount;
+    int target; // -1 if there is no end node to stop at
+    boolean done;
+    TraceSink sink = TraceSink.NONE;
 
     public DijkstraSnapshot(Demo demo) {
-        demo.getGraph().getNodes().forEach(node -> {
-            dist.put(node, Double.MAX_VALUE);
-            toTraverse.add(node);
-        });
-        dist.put(demo.getStart(), 0.0);
-    }
-
-    public Node getNext() {
-        Node min = toTraverse.stream()
-                .min((node1, node2) -> {
-                    if (dist.get(node1) == dist.get(node2)) {
-                        return 0;
-                    }
-                    return dist.get(node1) < dist.get(node2) ? -1 : 1;
-                }).orElseThrow(() -> new InterpreterException("No next node available"));
-        toTraverse.remove(min);
-        return min;
-    }
-
-    public void insertEdge(Edge edge) {
-        path.stream()
-                .filter(existingEdge -> existingEdge.getEnd().equals(edge.getEnd()))
-                .findFirst()
-                .ifPresent(existingEdge -> path.remove(existingEdge));
-        path.add(edge);
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public DijkstraSnapshot(GraphIndex index, Node start) {
+        this(index, start, null);
+    }
+
+    public DijkstraSnapshot(GraphIndex index, Node start, Node end) {
+        int maxDegree = 0;
+        for (int id = 0; id < index.size(); id++) {
+            maxDegree = Math.max(maxDegree, index.end(id) - index.begin(id));
+            for (int slot = index.begin(id); slot < index.end(id); slot++) {
+                if (Double.isNaN(index.weight(slot))) {
+                    throw new InterpreterException("Dijkstra's Algorithm requires every edge to have a weight");
+                }
+            }
+        }
+        this.index = index;
+        dist = new double[index.size()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        predecessors = new int[index.size()];
+        Arrays.fill(predecessors, -1);
+        settled = new boolean[index.size()];
+        addedSlots = new int[maxDegree];
+        removedSlots = new int[maxDegree];
+        toTraverse = new IndexedMinHeap(index.size());
+        target = index.id(end);
+        int startId = index.id(start);
+        dist[startId] = 0.0;
+        toTraverse.push(startId, 0.0);
+    }
+
+    public boolean isDone() {
+        return done || toTraverse.isEmpty();
+    }
+
+    /**
+     * Settles the next node and relaxes its outgoing edges, sending the edges that enter and leave the
+     * shortest-path tree to the sink as it goes and keeping them in {@link #getAddedSlots()} and
+     * {@link #getRemovedSlots()}. Settling the end node instead sends the path to it and finishes.
+     */
+    public void step() {
+        addedCount = 0;
+        removedCount = 0;
+        if (isDone()) {
+            return;
+        }
+        int id = toTraverse.pop();
+        settled[id] = true;
+        currentId = id;
+        if (id == target) {
+            done = true;
+            sink.nodeFound(id);
+            for (int slot = predecessors[id]; slot != -1; slot = predecessors[index.source(slot)]) {
+                sink.edgeChosen(index.edgeId(slot));
+            }
+            return;
+        }
+        for (int slot = index.begin(id); slot < index.end(id); slot++) {
+            int replaced = predecessors[index.target(slot)];
+            if (relax(id, slot)) {
+                if (replaced != -1) {
+                    removedSlots[removedCount++] = replaced;
+                    sink.edgeRemoved(index.edgeId(replaced));
+                }
+                addedSlots[addedCount++] = slot;
+                sink.edgeAdded(index.edgeId(slot));
+            }
+        }
+    }
+
+    /**
+     * Relaxes the edge in the given index slot out of a settled node, returns whether it shortened the path
+     */
+    private boolean relax(int from, int slot) {
+        int to = index.target(slot);
+        if (settled[to]) {
+            return false;
+        }
+        double alt = dist[from] + index.weight(slot);
+        if (alt < dist[to]) {
+            dist[to] = alt;
+            predecessors[to] = slot;
+            toTraverse.push(to, alt);
+            return true;
+        }
+        return false;
+    }
+
+    public Node getCurrent() {
+        return currentId == -1 ? null : index.node(currentId);
+    }
+
+    public double getDist(Node node) {
+        int id = index.id(node);
+        return id == -1 ? Double.POSITIVE_INFINITY : dist[id];
+    }
+
+    /**
+     * The current shortest-path tree: the best known edge into every reached node
+     */
+    public List<Edge> getPath() {
+        List<Edge> path = new ArrayList<>();
+        for (int slot : predecessors) {
+            if (slot != -1) {
+                path.add(index.edge(slot));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Returns the edges of the shortest path found to the node, ordered from the node back to the start
+     */
+    public List<Edge> pathTo(Node node) {
+        int id = index.id(node);
+        if (id == -1 || dist[id] == Double.POSITIVE_INFINITY) {
+            return Collections.emptyList();
+        }
+        List<Edge> edges = new ArrayList<>();
+        for (int slot = predecessors[id]; slot != -1; slot = predecessors[index.source(slot)]) {
+            edges.add(index.edge(slot));
+        }
+        return edges;
     }
 }
@@ -0,0 +1,61 @@
+package interpreter;
+
+/**
+ * Disjoint-set forest over the ids 0..size-1 with union by rank and path compression,
+ * so any sequence of operations costs near-constant amortized time each.
+ */
+class DisjointSets {
+    private final int[] parents;
+    private final byte[] ranks;
+    private int count;
+
+    DisjointSets(int size) {
+        parents = new int[size];
+        ranks = new byte[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+        }
+        count = size;
+    }
+
+    int find(int id) {
+        int root = id;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        while (parents[id] != root) {
+            int next = parents[id];
+            parents[id] = root;
+            id = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the sets containing the two ids, returns false if they were already the same set
+     */
+    boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (ranks[rootA] < ranks[rootB]) {
+            parents[rootA] = rootB;
+        } else if (ranks[rootA] > ranks[rootB]) {
+            parents[rootB] = rootA;
+        } else {
+            parents[rootB] = rootA;
+            ranks[rootA]++;
+        }
+        count--;
+        return true;
+    }
+
+    /**
+     * Number of disjoint sets remaining
+     */
+    int count() {
+        return count;
+    }
+}
@@ -0,0 +1,227 @@
+package interpreter;
+
+import model.DynamicGraph;
+import model.Edge;
+import model.GraphIndex;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shortest distances from one start node that stay correct while the edges of a {@link DynamicGraph} change.
+ *
+ * Updates are repaired locally, in the style of Ramalingam and Reps:
+ *  - a new or cheaper edge that shortens the path to its end runs Dijkstra's from that end, over only the nodes
+ *    whose distance drops
+ *  - deleting or raising a shortest-path tree edge invalidates the subtree below it, which is reattached through
+ *    the cheapest incoming edges from outside the subtree and then settled by Dijkstra's within it
+ *  - any other change can't affect a distance and costs O(1)
+ */
+public class DynamicShortestPaths implements DynamicGraph.Listener {
+    private final DynamicGraph graph;
+    private final int source;
+    private double[] dist; // indexed by node id
+    private int[] predecessors; // edge id of the shortest-path tree edge into each node, -1 if none
+    private final IndexedMinHeap toTraverse;
+    private final int[] subtree; // scratch space for raise
+
+    /**
+     * Runs Dijkstra's from the start, then follows every update to the graph
+     */
+    public DynamicShortestPaths(DynamicGraph graph, Node start) {
+        this(graph, start, null, null);
+        toTraverse.push(source, 0.0);
+        settle();
+    }
+
+    private DynamicShortestPaths(DynamicGraph graph, Node start, double[] dist, int[] predecessors) {
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (graph.isAlive(edge)) {
+                requireWeight(graph.weight(edge));
+            }
+        }
+        this.graph = graph;
+        this.source = graph.id(start);
+        if (source == -1) {
+            throw new InterpreterException("Demo must begin with a node that exists in the graph");
+        }
+        this.toTraverse = new IndexedMinHeap(graph.size());
+        this.subtree = new int[graph.size()];
+        if (dist == null) {
+            this.dist = new double[graph.size()];
+            this.predecessors = new int[graph.size()];
+            Arrays.fill(this.dist, Double.POSITIVE_INFINITY);
+            Arrays.fill(this.predecessors, -1);
+            this.dist[source] = 0.0;
+        } else {
+            this.dist = dist;
+            this.predecessors = predecessors;
+        }
+        graph.addListener(this);
+    }
+
+    /**
+     * Takes over the distances of a Dijkstra's run over the index the dynamic graph was made from, instead of running
+     * Dijkstra's again. A run that stopped early, on its end node or anywhere else, is finished first: its queue and
+     * the node it settled last, whose edges may not have been relaxed, are queued again.
+     */
+    public static DynamicShortestPaths of(DynamicGraph graph, DijkstraSnapshot dijkstraSnapshot) {
+        GraphIndex index = dijkstraSnapshot.getIndex();
+        int[] predecessors = new int[index.size()];
+        for (int id = 0; id < predecessors.length; id++) {
+            int slot = dijkstraSnapshot.getPredecessors()[id];
+            predecessors[id] = slot == -1 ? -1 : index.edgeId(slot);
+        }
+        // the start is the only node at distance 0 without a tree edge into it
+        Node start = null;
+        for (int id = 0; id < index.size() && start == null; id++) {
+            if (dijkstraSnapshot.getDist()[id] == 0.0 && predecessors[id] == -1) {
+                start = index.node(id);
+            }
+        }
+        DynamicShortestPaths paths = new DynamicShortestPaths(graph, start, dijkstraSnapshot.getDist().clone(),
+                predecessors);
+        for (int id = 0; id < index.size(); id++) {
+            boolean queued = !dijkstraSnapshot.getSettled()[id] && paths.dist[id] < Double.POSITIVE_INFINITY;
+            if (queued || id == dijkstraSnapshot.getCurrentId()) {
+                paths.toTraverse.push(id, paths.dist[id]);
+            }
+        }
+        paths.settle();
+        return paths;
+    }
+
+    /**
+     * Stops following updates to the graph
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    public double getDist(Node node) {
+        int id = graph.id(node);
+        return id == -1 ? Double.POSITIVE_INFINITY : dist[id];
+    }
+
+    /**
+     * Returns the edges of a shortest path from the start to the node, in order, empty if it can't be reached
+     */
+    public List<Edge> pathTo(Node node) {
+        int id = graph.id(node);
+        if (id == -1 || dist[id] == Double.POSITIVE_INFINITY) {
+            return Collections.emptyList();
+        }
+        List<Edge> path = new ArrayList<>();
+        for (int edge = predecessors[id]; edge != -1; edge = predecessors[graph.start(edge)]) {
+            path.add(graph.edge(edge));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    @Override
+    public void edgeAdded(int edge) {
+        requireWeight(graph.weight(edge));
+        lower(edge);
+    }
+
+    @Override
+    public void edgeRemoved(int edge) {
+        if (predecessors[graph.end(edge)] == edge) {
+            raise(graph.end(edge));
+        }
+    }
+
+    @Override
+    public void weightChanged(int edge, double oldWeight) {
+        requireWeight(graph.weight(edge));
+        if (graph.weight(edge) < oldWeight) {
+            lower(edge);
+        } else if (predecessors[graph.end(edge)] == edge) {
+            raise(graph.end(edge));
+        }
+    }
+
+    /**
+     * Propagates a possibly shorter path through the edge
+     */
+    private void lower(int edge) {
+        int to = graph.end(edge);
+        double alt = dist[graph.start(edge)] + graph.weight(edge);
+        if (alt < dist[to]) {
+            dist[to] = alt;
+            predecessors[to] = edge;
+            toTraverse.push(to, alt);
+            settle();
+        }
+    }
+
+    /**
+     * Recomputes the distances in the shortest-path subtree under the node, whose tree edge got longer or went away
+     */
+    private void raise(int root) {
+        // collect the subtree: a node hangs below another if its tree edge starts there
+        int count = 0;
+        subtree[count++] = root;
+        for (int i = 0; i < count; i++) {
+            int id = subtree[i];
+            for (int j = 0; j < graph.outDegree(id); j++) {
+                int edge = graph.outgoing(id, j);
+                if (predecessors[graph.end(edge)] == edge) {
+                    subtree[count++] = graph.end(edge);
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            dist[subtree[i]] = Double.POSITIVE_INFINITY;
+            predecessors[subtree[i]] = -1;
+        }
+        // distances outside the subtree are still right, so the best way back in is through them
+        for (int i = 0; i < count; i++) {
+            int id = subtree[i];
+            for (int j = 0; j < graph.inDegree(id); j++) {
+                int edge = graph.incoming(id, j);
+                double alt = dist[graph.start(edge)] + graph.weight(edge);
+                if (alt < dist[id]) {
+                    dist[id] = alt;
+                    predecessors[id] = edge;
+                }
+            }
+            if (dist[id] < Double.POSITIVE_INFINITY) {
+                toTraverse.push(id, dist[id]);
+            }
+        }
+        settle();
+    }
+
+    /**
+     * Dijkstra's from whatever is queued, relaxing only edges that shorten a path
+     */
+    private void settle() {
+        while (!toTraverse.isEmpty()) {
+            int id = toTraverse.pop();
+            for (int j = 0; j < graph.outDegree(id); j++) {
+                int edge = graph.outgoing(id, j);
+                int to = graph.end(edge);
+                double alt = dist[id] + graph.weight(edge);
+                if (alt < dist[to]) {
+                    dist[to] = alt;
+                    predecessors[to] = edge;
+                    toTraverse.push(to, alt);
+                }
+            }
+        }
+    }
+
+    private static void requireWeight(double weight) {
+        if (Double.isNaN(weight)) {
+            throw new InterpreterException("Dijkstra's Algorithm requires every edge to have a weight");
+        }
+        if (weight < 0) {
+            throw new InterpreterException("Dijkstra's Algorithm requires non-negative weights");
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package interpreter;
+
+import model.DynamicGraph;
+import model.Edge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A minimum spanning forest that stays minimal while the edges of a {@link DynamicGraph} change.
+ *
+ * Like Prim's and Kruskal's, it treats the graph as undirected, so an edge and its reverse are two candidates for
+ * the same connection. Updates are repaired locally with the cycle and cut properties:
+ *  - a new or cheaper edge joins two trees, or replaces the most expensive edge on the tree path between its
+ *    endpoints if it is cheaper than that edge
+ *  - deleting or raising a tree edge cuts its tree in two, which are joined again by the cheapest edge between
+ *    them, found by scanning the edges of the smaller half
+ *  - any other change can't affect the forest and costs O(1)
+ */
+public class DynamicSpanningForest implements DynamicGraph.Listener {
+    private final DynamicGraph graph;
+    private boolean[] inForest; // indexed by edge id
+    private final int[][] treeEdges; // forest edge ids at each node, the first degree[id] entries are used
+    private final int[] degree;
+    private final int[] via; // scratch space: edge id a search reached each node through, -2 if not reached
+    private final int[] queue;
+
+    private DynamicSpanningForest(DynamicGraph graph) {
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (graph.isAlive(edge)) {
+                requireWeight(graph.weight(edge));
+            }
+        }
+        this.graph = graph;
+        this.inForest = new boolean[Math.max(graph.edgeCount(), 16)];
+        this.treeEdges = new int[graph.size()][];
+        this.degree = new int[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            treeEdges[id] = new int[2];
+        }
+        this.via = new int[graph.size()];
+        Arrays.fill(via, -2);
+        this.queue = new int[graph.size()];
+        graph.addListener(this);
+    }
+
+    /**
+     * Builds the forest with Kruskal's, then follows every update to the graph
+     */
+    public static DynamicSpanningForest of(DynamicGraph graph) {
+        DynamicSpanningForest forest = new DynamicSpanningForest(graph);
+        Integer[] edges = new Integer[graph.edgeCount()];
+        int count = 0;
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (graph.isAlive(edge)) {
+                edges[count++] = edge;
+            }
+        }
+        Arrays.sort(edges, 0, count, (a, b) -> Double.compare(graph.weight(a), graph.weight(b)));
+        forest.linkAll(Arrays.asList(edges).subList(0, count));
+        return forest;
+    }
+
+    /**
+     * Takes over a minimum spanning forest that was already computed, such as the chosen edges of a finished
+     * {@link KruskalSnapshot}, or the tree of a finished {@link PrimSnapshot} on a connected graph
+     */
+    public static DynamicSpanningForest of(DynamicGraph graph, List<Edge> tree) {
+        DynamicSpanningForest forest = new DynamicSpanningForest(graph);
+        List<Integer> edges = new ArrayList<>();
+        for (Edge edge : tree) {
+            int id = graph.find(edge.getStart(), edge.getEnd(), edge.getWeight() == null ? Double.NaN : edge.getWeight());
+            if (id == -1) {
+                throw new InterpreterException("Edge " + edge + " is not in the graph");
+            }
+            edges.add(id);
+        }
+        forest.linkAll(edges);
+        return forest;
+    }
+
+    /**
+     * Links the edges in order, skipping those that would close a cycle, like reverse edges of edges already linked
+     */
+    private void linkAll(List<Integer> edges) {
+        DisjointSets trees = new DisjointSets(graph.size());
+        for (int edge : edges) {
+            if (trees.union(graph.start(edge), graph.end(edge))) {
+                link(edge);
+            }
+        }
+    }
+
+    /**
+     * Stops following updates to the graph
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    /**
+     * The forest's edges, each followed by its reverse like the trees of Prim's and Kruskal's
+     */
+    public List<Edge> getTree() {
+        List<Edge> tree = new ArrayList<>();
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (isInForest(edge)) {
+                Edge chosen = graph.edge(edge);
+                tree.add(chosen);
+                tree.add(Edge.of(chosen.getEnd(), chosen.getStart(), chosen.getWeight()));
+            }
+        }
+        return tree;
+    }
+
+    public double getWeight() {
+        double weight = 0;
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (isInForest(edge)) {
+                weight += graph.weight(edge);
+            }
+        }
+        return weight;
+    }
+
+    private boolean isInForest(int edge) {
+        return edge < inForest.length && inForest[edge];
+    }
+
+    @Override
+    public void edgeAdded(int edge) {
+        requireWeight(graph.weight(edge));
+        offer(edge);
+    }
+
+    @Override
+    public void edgeRemoved(int edge) {
+        if (isInForest(edge)) {
+            cut(edge);
+            reconnect(graph.start(edge), graph.end(edge));
+        }
+    }
+
+    @Override
+    public void weightChanged(int edge, double oldWeight) {
+        requireWeight(graph.weight(edge));
+        if (!isInForest(edge)) {
+            if (graph.weight(edge) < oldWeight) {
+                offer(edge);
+            }
+        } else if (graph.weight(edge) > oldWeight) {
+            // the edge itself is still a candidate for joining the halves again
+            cut(edge);
+            reconnect(graph.start(edge), graph.end(edge));
+        }
+    }
+
+    /**
+     * Adds a non-forest edge to the forest if that makes it lighter
+     */
+    private void offer(int edge) {
+        int start = graph.start(edge);
+        int end = graph.end(edge);
+        if (start == end) {
+            return;
+        }
+        if (!search(start, end)) {
+            clearSearch(start);
+            link(edge);
+            return;
+        }
+        // the tree path from end back to start, and its heaviest edge
+        int heaviest = -1;
+        for (int id = end; id != start; id = other(via[id], id)) {
+            if (heaviest == -1 || graph.weight(via[id]) > graph.weight(heaviest)) {
+                heaviest = via[id];
+            }
+        }
+        clearSearch(start);
+        if (graph.weight(heaviest) > graph.weight(edge)) {
+            cut(heaviest);
+            link(edge);
+        }
+    }
+
+    /**
+     * Joins the trees of the two nodes, just split by a cut, with the cheapest edge between them if there is one
+     */
+    private void reconnect(int first, int second) {
+        int firstSize = searchSize(first);
+        clearSearch(first);
+        int secondSize = searchSize(second);
+        clearSearch(second);
+        int smaller = firstSize <= secondSize ? first : second;
+        int count = searchSize(smaller);
+        // every node of the smaller half is now marked in via, so an edge crosses if its other end is unmarked
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            int id = queue[i];
+            for (int j = 0; j < graph.outDegree(id); j++) {
+                best = lighter(best, graph.outgoing(id, j), graph.end(graph.outgoing(id, j)));
+            }
+            for (int j = 0; j < graph.inDegree(id); j++) {
+                best = lighter(best, graph.incoming(id, j), graph.start(graph.incoming(id, j)));
+            }
+        }
+        clearSearch(smaller);
+        if (best != -1) {
+            link(best);
+        }
+    }
+
+    private int lighter(int best, int edge, int other) {
+        if (via[other] != -2) {
+            return best;
+        }
+        if (best == -1 || graph.weight(edge) < graph.weight(best)
+                || (graph.weight(edge) == graph.weight(best) && edge < best)) {
+            return edge;
+        }
+        return best;
+    }
+
+    /**
+     * Searches the forest from start, marking every node it reaches in via; returns whether it reached target
+     */
+    private boolean search(int start, int target) {
+        searchSize(start);
+        return via[target] != -2;
+    }
+
+    /**
+     * Marks the tree of the node in via and lists its nodes at the front of queue, returning how many there are
+     */
+    private int searchSize(int start) {
+        int count = 0;
+        queue[count++] = start;
+        via[start] = -1;
+        for (int i = 0; i < count; i++) {
+            int id = queue[i];
+            for (int j = 0; j < degree[id]; j++) {
+                int edge = treeEdges[id][j];
+                int next = other(edge, id);
+                if (via[next] == -2) {
+                    via[next] = edge;
+                    queue[count++] = next;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Unmarks the tree of the node, which the last search marked
+     */
+    private void clearSearch(int start) {
+        int count = 0;
+        queue[count++] = start;
+        via[start] = -2;
+        for (int i = 0; i < count; i++) {
+            int id = queue[i];
+            for (int j = 0; j < degree[id]; j++) {
+                int next = other(treeEdges[id][j], id);
+                if (via[next] != -2) {
+                    via[next] = -2;
+                    queue[count++] = next;
+                }
+            }
+        }
+    }
+
+    private int other(int edge, int id) {
+        return graph.start(edge) == id ? graph.end(edge) : graph.start(edge);
+    }
+
+    private void link(int edge) {
+        if (edge >= inForest.length) {
+            inForest = Arrays.copyOf(inForest, Math.max(edge + 1, inForest.length * 2));
+        }
+        inForest[edge] = true;
+        attach(graph.start(edge), edge);
+        attach(graph.end(edge), edge);
+    }
+
+    private void cut(int edge) {
+        inForest[edge] = false;
+        detach(graph.start(edge), edge);
+        detach(graph.end(edge), edge);
+    }
+
+    private void attach(int id, int edge) {
+        if (degree[id] == treeEdges[id].length) {
+            treeEdges[id] = Arrays.copyOf(treeEdges[id], degree[id] * 2);
+        }
+        treeEdges[id][degree[id]++] = edge;
+    }
+
+    private void detach(int id, int edge) {
+        for (int i = 0; i < degree[id]; i++) {
+            if (treeEdges[id][i] == edge) {
+                treeEdges[id][i] = treeEdges[id][--degree[id]];
+                return;
+            }
+        }
+    }
+
+    private static void requireWeight(double weight) {
+        if (Double.isNaN(weight)) {
+            throw new InterpreterException("A spanning tree requires every edge to have a weight");
+        }
+    }
+}
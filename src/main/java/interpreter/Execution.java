@@ -0,0 +1,19 @@
+package interpreter;
+
+import lombok.Value;
+import model.Demo;
+import model.Edge;
+
+import java.util.List;
+
+/**
+ * The outcome of running a demo headlessly: every step taken, plus the resulting edges, which are the
+ * path from start to end for Dijkstra's, A* and the bidirectional searches, the spanning tree for Prim's and
+ * Kruskal's and empty otherwise.
+ */
+@Value(staticConstructor = "of")
+public class Execution {
+    Demo demo;
+    List<Step> steps;
+    List<Edge> edges;
+}
@@ -0,0 +1,77 @@
+package interpreter;
+
+import model.Algorithm;
+import model.Demo;
+import model.Graph;
+import model.GraphIndex;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * A graph that is validated and indexed once, then answers any number of queries headlessly.
+ *
+ * Queries share the index and nothing else, so a session can be used from many threads at once, and
+ * {@link #executeAll(List)} answers a whole batch in parallel.
+ */
+public class GraphSession {
+    private final Graph graph;
+    private final GraphIndex index;
+
+    private GraphSession(Graph graph, GraphIndex index) {
+        this.graph = graph;
+        this.index = index;
+    }
+
+    public static GraphSession of(Graph graph) {
+        Interpreter.validateGraph(graph);
+        return new GraphSession(graph, GraphIndex.of(graph));
+    }
+
+    /**
+     * Opens a session over an index, such as one built by {@link model.OffHeapGraph} or mapped by
+     * {@link model.GraphFile}, so the graph is never copied onto the heap. Every index already has unique node names
+     * and edges between its own nodes; duplicate edges are not checked here, since that would take a table over every
+     * edge.
+     */
+    public static GraphSession of(GraphIndex index) {
+        return new GraphSession(null, index);
+    }
+
+    /**
+     * The graph, or null for a session opened over an index alone; the demos of its executions then carry no graph
+     * either
+     */
+    public Graph getGraph() {
+        return graph;
+    }
+
+    public GraphIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Answers the query the way {@link Interpreter#execute(Demo)} answers the same demo on this graph
+     */
+    public Execution execute(Query query) {
+        if (query.getAlgorithm() != Algorithm.NOTHING && index.id(query.getStart()) == -1) {
+            throw new InterpreterException("Demo must begin with a node that exists in the graph");
+        }
+        return Interpreter.execute(Demo.of(query.getAlgorithm(), graph, query.getStart(), query.getEnd()), index);
+    }
+
+    /**
+     * Answers the queries in parallel on the common fork-join pool, returning the results in query order
+     */
+    public List<Execution> executeAll(List<Query> queries) {
+        return executeAll(queries, ForkJoinPool.commonPool());
+    }
+
+    public List<Execution> executeAll(List<Query> queries, ForkJoinPool pool) {
+        return pool.submit(() -> queries.parallelStream()
+                .map(this::execute)
+                .collect(Collectors.toList()))
+                .join();
+    }
+}
@@ -0,0 +1,28 @@
+package interpreter;
+
+import model.GraphIndex;
+
+/**
+ * Estimates the cost of the cheapest path between two nodes, given by their ids. A* settles nodes in order of
+ * distance so far plus this estimate, so it only finds shortest paths if the estimate never exceeds the true cost.
+ */
+@FunctionalInterface
+public interface Heuristic {
+    /**
+     * Estimates nothing, which makes A* behave like Dijkstra's algorithm
+     */
+    Heuristic NONE = (from, to) -> 0.0;
+
+    double estimate(int from, int to);
+
+    /**
+     * Straight-line distance between the node coordinates given in the program, 0 when either node has none.
+     * Only a lower bound if no edge is shorter than the distance between its endpoints.
+     */
+    static Heuristic euclidean(GraphIndex index) {
+        return (from, to) -> {
+            double distance = Math.hypot(index.x(from) - index.x(to), index.y(from) - index.y(to));
+            return Double.isNaN(distance) ? 0.0 : distance;
+        };
+    }
+}
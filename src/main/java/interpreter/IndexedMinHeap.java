@@ -0,0 +1,123 @@
+package interpreter;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over the dense node ids 0..capacity-1 with decrease-key.
+ * Ids with equal keys come out lowest id first, so runs are deterministic.
+ */
+class IndexedMinHeap {
+    private final int[] heap; // heap[i] is the id stored at heap position i
+    private final int[] positions; // positions[id] is where id sits in heap, -1 if absent
+    private final double[] keys;
+    private int size = 0;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return positions[id] != -1;
+    }
+
+    /**
+     * Inserts the id, or lowers its key if it is already queued with a larger one
+     */
+    void push(int id, double key) {
+        if (contains(id)) {
+            if (key < keys[id]) {
+                keys[id] = key;
+                siftUp(positions[id]);
+            }
+            return;
+        }
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Key of the id {@link #peek()} returns, +infinity when empty
+     */
+    double peekKey() {
+        return size == 0 ? Double.POSITIVE_INFINITY : keys[heap[0]];
+    }
+
+    int pop() {
+        int min = heap[0];
+        positions[min] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private boolean less(int i, int j) {
+        double a = keys[heap[i]];
+        double b = keys[heap[j]];
+        return a < b || (a == b && heap[i] < heap[j]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!less(i, parent)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && less(left, smallest)) {
+                smallest = left;
+            }
+            if (right < size && less(right, smallest)) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = heap[i];
+        heap[i] = heap[j];
+        heap[j] = id;
+        positions[heap[i]] = i;
+        positions[heap[j]] = j;
+    }
+}
@@ -1,295 +1,476 @@
 package interpreter;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import metrics.Metrics;
+import metrics.Phase;
+import metrics.Probe;
 import model.Algorithm;
 import model.Demo;
 import model.Edge;
+import model.GraphIndex;
 import model.Node;
-import org.graphstream.graph.Graph;
-import org.graphstream.graph.implementations.SingleGraph;
-import org.joda.time.DateTime;
-import org.joda.time.Seconds;
 import parser.Parser;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.BiConsumer;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 public class Interpreter {
-    private static final Map<Algorithm, Supplier<Snapshot>> SNAPSHOT_SUPPLIERS = ImmutableMap.of(
-            Algorithm.DFS, DfsSnapshot::new,
-            Algorithm.BFS, BfsSnapshot::new);
-
-    private static final Map<Algorithm, BiConsumer<Demo, GraphStreamGraph>> ANIMATION_FUNCTION_SUPPLIERS = ImmutableMap.<Algorithm, BiConsumer<Demo, GraphStreamGraph>>builder()
-            .put(Algorithm.DFS, Interpreter::doSearchAnimation)
-            .put(Algorithm.BFS, Interpreter::doSearchAnimation)
-            .put(Algorithm.DIJKSTRAS, Interpreter::doDjikstraAnimation)
-            .put(Algorithm.PRIMS, Interpreter::doPrimAnimation)
-            .put(Algorithm.KRUSKALS, Interpreter::doKruskalAnimation)
-            .put(Algorithm.NOTHING, Interpreter::doNothingAnimation)
+    private static final Map<Algorithm, BiFunction<Demo, GraphIndex, SearchSnapshot>> SEARCH_SNAPSHOT_SUPPLIERS = ImmutableMap.of(
+            Algorithm.DFS, (demo, index) -> new DfsSnapshot(index, demo.getStart(), demo.getEnd()),
+            Algorithm.BFS, (demo, index) -> new BfsSnapshot(index, demo.getStart(), demo.getEnd()));
+
+    private static final Map<Algorithm, BiFunction<Demo, GraphIndex, PathSnapshot>> PATH_SNAPSHOT_SUPPLIERS = ImmutableMap.of(
+            Algorithm.BIDIRECTIONAL_BFS, (demo, index) -> new BidirectionalBfsSnapshot(index, demo.getStart(), demo.getEnd()),
+            Algorithm.BIDIRECTIONAL_DIJKSTRAS, (demo, index) -> new BidirectionalDijkstraSnapshot(index, demo.getStart(), demo.getEnd()),
+            Algorithm.A_STAR, (demo, index) -> new AStarSnapshot(index, demo.getStart(), demo.getEnd()));
+
+    private static final Map<Algorithm, Recorder> RECORDERS = ImmutableMap.<Algorithm, Recorder>builder()
+            .put(Algorithm.DFS, Interpreter::recordSearch)
+            .put(Algorithm.BFS, Interpreter::recordSearch)
+            .put(Algorithm.PARALLEL_BFS, Interpreter::recordParallelBfs)
+            .put(Algorithm.DIJKSTRAS, Interpreter::recordDijkstra)
+            .put(Algorithm.PRIMS, Interpreter::recordPrim)
+            .put(Algorithm.KRUSKALS, Interpreter::recordKruskal)
+            .put(Algorithm.BIDIRECTIONAL_BFS, Interpreter::recordPath)
+            .put(Algorithm.BIDIRECTIONAL_DIJKSTRAS, Interpreter::recordPath)
+            .put(Algorithm.A_STAR, Interpreter::recordPath)
+            .put(Algorithm.BORUVKAS, Interpreter::recordBoruvka)
+            .put(Algorithm.DELTA_STEPPING, Interpreter::recordDeltaStepping)
+            .put(Algorithm.NOTHING, (demo, index, sink) -> { })
+            .build();
+
+    private static final Map<Algorithm, Executor> EXECUTION_FUNCTIONS = ImmutableMap.<Algorithm, Executor>builder()
+            .put(Algorithm.DFS, Interpreter::executeSearch)
+            .put(Algorithm.BFS, Interpreter::executeSearch)
+            .put(Algorithm.PARALLEL_BFS, Interpreter::executeParallelBfs)
+            .put(Algorithm.DIJKSTRAS, Interpreter::executeDijkstra)
+            .put(Algorithm.PRIMS, Interpreter::executePrim)
+            .put(Algorithm.KRUSKALS, Interpreter::executeKruskal)
+            .put(Algorithm.BIDIRECTIONAL_BFS, Interpreter::executePath)
+            .put(Algorithm.BIDIRECTIONAL_DIJKSTRAS, Interpreter::executePath)
+            .put(Algorithm.A_STAR, Interpreter::executePath)
+            .put(Algorithm.BORUVKAS, Interpreter::executeBoruvka)
+            .put(Algorithm.DELTA_STEPPING, Interpreter::executeDeltaStepping)
+            .put(Algorithm.NOTHING, (demo, index, probe) -> Execution.of(demo, Collections.emptyList(), Collections.emptyList()))
             .build();
 
-    private static final int SLOW_STEP_SECONDS = 3;
-    private static final int FAST_STEP_SECONDS = 1;
+    private static final int SLOW_STEP_MILLIS = 3000;
+    private static final int FAST_STEP_MILLIS = 1000;
+
+    /**
+     * Runs a validated demo over an index of its graph, sending what it changes in the picture to the sink
+     */
+    @FunctionalInterface
+    private interface Recorder {
+        void record(Demo demo, GraphIndex index, TraceSink sink);
+    }
+
+    /**
+     * Runs a validated demo over an index of its graph, counting its work into the probe
+     */
+    @FunctionalInterface
+    private interface Executor {
+        Execution execute(Demo demo, GraphIndex index, Probe probe);
+    }
 
     public static void run(String concrete) {
         Interpreter.interpret(Parser.parse(concrete));
     }
 
+    public static Execution execute(String concrete) {
+        return Interpreter.execute(Parser.parse(concrete));
+    }
+
+    /**
+     * Runs the demo to completion without rendering or pausing, recording every step
+     */
+    public static Execution execute(Demo demo) {
+        validateDemo(demo);
+        return execute(demo, index(demo));
+    }
+
+    /**
+     * Runs a validated demo over an index of its graph
+     */
+    static Execution execute(Demo demo, GraphIndex index) {
+        long started = Metrics.start();
+        Probe probe = Metrics.probe(demo.getAlgorithm());
+        Execution execution = EXECUTION_FUNCTIONS.get(demo.getAlgorithm()).execute(demo, index, probe);
+        probe.finish();
+        Metrics.stop(Phase.RUN, started);
+        return execution;
+    }
+
+    private static GraphIndex index(Demo demo) {
+        long started = Metrics.start();
+        GraphIndex index = GraphIndex.of(demo.getGraph());
+        Metrics.stop(Phase.INDEX, started);
+        return index;
+    }
+
+    private static void record(Demo demo, GraphIndex index, TraceSink sink) {
+        long started = Metrics.start();
+        RECORDERS.get(demo.getAlgorithm()).record(demo, index, sink);
+        Metrics.stop(Phase.RUN, started);
+    }
+
     public static void interpret(Demo demo) {
+        replay(trace(demo), 1);
+    }
+
+    /**
+     * Runs the demo to completion at full speed, recording what it changes in the picture of the graph
+     */
+    public static Trace trace(Demo demo) {
         validateDemo(demo);
-        System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
-        Graph graph = new SingleGraph("Graph");
-        Map<Node, org.graphstream.graph.Node> nodeMap = new HashMap<>();
-        Map<Edge, org.graphstream.graph.Edge> edgeMap = new HashMap<>();
-        for (Node node : demo.getGraph().getNodes()) {
-            org.graphstream.graph.Node gNode = graph.addNode(node.getName());
-            gNode.addAttribute("ui.style", "fill-color: grey;size: 30px;");
-            gNode.addAttribute("ui.label", node.getName());
-            nodeMap.put(node, gNode);
+        GraphIndex index = index(demo);
+        Trace trace = new Trace(demo.getAlgorithm(), index.getGraph());
+        record(demo, index, trace);
+        return trace;
+    }
+
+    /**
+     * Runs the demo to completion, sending what it changes in the picture of the graph to the sink as it goes
+     */
+    public static void trace(Demo demo, TraceSink sink) {
+        validateDemo(demo);
+        record(demo, index(demo), sink);
+    }
+
+    /**
+     * Shows the trace in a window, with every pause lasting 1 / speed times as long as at normal speed
+     */
+    public static void replay(Trace trace, double speed) {
+        TraceViewer viewer = TraceViewer.open(trace.getGraph(), speed);
+        viewer.pause(SLOW_STEP_MILLIS);
+        trace.replay(viewer);
+        viewer.flush();
+        if (trace.getAlgorithm() == Algorithm.NOTHING) {
+            // nothing to show but the graph, so leave it up
+            TraceViewer.await(TimeUnit.SECONDS.toMillis(9999999));
         }
-        for (Edge edge : demo.getGraph().getEdges()) {
-            org.graphstream.graph.Edge gEdge = graph.addEdge(edge.getStart().getName() + edge.getEnd().getName(),
-                    edge.getStart().getName(), edge.getEnd().getName(), true);
-            if (edge.getWeight() != null) {
-                gEdge.setAttribute("weight", edge.getWeight());
-                gEdge.addAttribute("ui.label", edge.getWeight());
-            }
-            edgeMap.put(edge, gEdge);
+    }
+
+    private static void recordSearch(Demo demo, GraphIndex index, TraceSink sink) {
+        SearchSnapshot searchSnapshot = SEARCH_SNAPSHOT_SUPPLIERS.get(demo.getAlgorithm()).apply(demo, index);
+        searchSnapshot.setSink(sink);
+        while (!searchSnapshot.isDone()) {
+            searchSnapshot.step();
+            sink.pause(SLOW_STEP_MILLIS);
         }
-        graph.display();
-        display(SLOW_STEP_SECONDS);
-        ANIMATION_FUNCTION_SUPPLIERS.get(demo.getAlgorithm()).accept(demo, GraphStreamGraph.of(nodeMap, edgeMap));
     }
 
-    private static void doNothingAnimation(Demo demo, GraphStreamGraph graphStreamGraph) {
-        display(9999999);
+    private static void recordParallelBfs(Demo demo, GraphIndex index, TraceSink sink) {
+        ParallelBfsSnapshot bfsSnapshot = new ParallelBfsSnapshot(index, demo.getStart(), demo.getEnd());
+        bfsSnapshot.setSink(sink);
+        while (!bfsSnapshot.isDone()) {
+            bfsSnapshot.step();
+            sink.pause(SLOW_STEP_MILLIS);
+        }
     }
 
+    private static void recordDijkstra(Demo demo, GraphIndex index, TraceSink sink) {
+        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(index, demo.getStart(), demo.getEnd());
+        dijkstraSnapshot.setSink(new PacedSink(sink, 1));
+        while (!dijkstraSnapshot.isDone()) {
+            dijkstraSnapshot.step();
+        }
+        sink.pause(SLOW_STEP_MILLIS);
+    }
 
-    @SuppressWarnings("unchecked") // i checked
-    private static void doSearchAnimation(Demo demo, GraphStreamGraph graphStreamGraph) {
-        Map<Node, org.graphstream.graph.Node> nodes = graphStreamGraph.getNodes();
+    private static void recordDeltaStepping(Demo demo, GraphIndex index, TraceSink sink) {
+        DeltaSteppingSnapshot deltaSteppingSnapshot = new DeltaSteppingSnapshot(index, demo.getStart(), demo.getEnd());
+        deltaSteppingSnapshot.setSink(sink);
+        while (!deltaSteppingSnapshot.isDone()) {
+            deltaSteppingSnapshot.step();
+            sink.pause(SLOW_STEP_MILLIS);
+        }
+    }
 
-        SearchSnapshot searchSnapshot = (SearchSnapshot) SNAPSHOT_SUPPLIERS.get(demo.getAlgorithm()).get();
-        searchSnapshot.getNodeAdder().accept(demo.getStart());
+    private static void recordKruskal(Demo demo, GraphIndex index, TraceSink sink) {
+        KruskalSnapshot kruskalSnapshot = new KruskalSnapshot(index);
+        // show the a->b and b->a edges together instead of separately
+        kruskalSnapshot.setSink(new PacedSink(sink, 2));
+        while (!kruskalSnapshot.isDone()) {
+            kruskalSnapshot.step();
+        }
+        sink.pause(SLOW_STEP_MILLIS);
+    }
 
-        while (true) {
-            Node current = searchSnapshot.getCurrent();
-            if (current != null) {
-                nodes.get(current).setAttribute("ui.style", "fill-color: green;size: 30px;");
-            }
-            searchSnapshot = search(demo, searchSnapshot);
-            current = searchSnapshot.getCurrent();
-            if (current == null) {
-                display(SLOW_STEP_SECONDS);
-                return;
-            }
-            if (current.equals(demo.getEnd())) {
-                nodes.get(current).setAttribute("ui.style", "fill-color: yellow;size: 30px;");
-                display(SLOW_STEP_SECONDS);
-                return;
-            }
-            nodes.get(current).setAttribute("ui.style", "fill-color: red;size: 30px;");
-            display(SLOW_STEP_SECONDS);
+    private static void recordBoruvka(Demo demo, GraphIndex index, TraceSink sink) {
+        BoruvkaSnapshot boruvkaSnapshot = new BoruvkaSnapshot(index);
+        boruvkaSnapshot.setSink(sink);
+        while (!boruvkaSnapshot.isDone()) {
+            // a whole round of edges joins the forest at once
+            boruvkaSnapshot.step();
+            sink.pause(SLOW_STEP_MILLIS);
         }
     }
 
-    private static void doDjikstraAnimation(Demo demo, GraphStreamGraph graphStreamGraph) {
-        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(demo);
-        while (true) {
-            List<Edge> oldPath = new ArrayList<>(dijkstraSnapshot.getPath());
-            graphStreamGraph.getEdges().values().forEach(edge ->
-                    edge.setAttribute("ui.style", "fill-color: black;"));
-            dijkstraSnapshot = search(demo, dijkstraSnapshot);
-            if (dijkstraSnapshot.getCurrent() == null) {
-                display(SLOW_STEP_SECONDS);
-                return;
+    private static void recordPrim(Demo demo, GraphIndex index, TraceSink sink) {
+        PrimSnapshot primSnapshot = new PrimSnapshot(index, demo.getStart());
+        // show the a->b and b->a edges together instead of separately
+        primSnapshot.setSink(new PacedSink(sink, 2));
+        while (!primSnapshot.isDone()) {
+            primSnapshot.step();
+        }
+        sink.pause(SLOW_STEP_MILLIS);
+    }
+
+    private static void recordPath(Demo demo, GraphIndex index, TraceSink sink) {
+        PathSnapshot pathSnapshot = PATH_SNAPSHOT_SUPPLIERS.get(demo.getAlgorithm()).apply(demo, index);
+        pathSnapshot.setSink(sink);
+        while (!pathSnapshot.isDone()) {
+            pathSnapshot.step();
+            if (pathSnapshot.getCurrent() != null) {
+                sink.pause(FAST_STEP_MILLIS);
             }
-            for (Edge edge : dijkstraSnapshot.getPath()) {
-                graphStreamGraph.getEdge(edge).setAttribute("ui.style", "fill-color: green;");
-                if (!oldPath.contains(edge)) {
-                    display(FAST_STEP_SECONDS);
+        }
+        sink.pause(SLOW_STEP_MILLIS);
+    }
+
+    private static Execution executeSearch(Demo demo, GraphIndex index, Probe probe) {
+        SearchSnapshot searchSnapshot = SEARCH_SNAPSHOT_SUPPLIERS.get(demo.getAlgorithm()).apply(demo, index);
+        List<Step> steps = new ArrayList<>();
+        while (!searchSnapshot.isDone()) {
+            probe.queued(searchSnapshot.getQueueSize());
+            searchSnapshot.step();
+            Node current = searchSnapshot.getCurrent();
+            if (current != null) {
+                steps.add(Step.of(current, Collections.emptyList(), Collections.emptyList()));
+                if (!searchSnapshot.isDone()) { // the end node is not expanded
+                    probe.expanded(index, current);
                 }
             }
-            if (dijkstraSnapshot.getCurrent().equals(demo.getEnd())) {
-                graphStreamGraph.getNode(dijkstraSnapshot.getCurrent()).setAttribute("ui.style", "fill-color: yellow;size: 30px;");
-                getPath(demo.getStart(), demo.getEnd(), dijkstraSnapshot.getPath()).forEach(edge ->
-                        graphStreamGraph.getEdge(edge).setAttribute("ui.style", "fill-color: red;"));
-                display(SLOW_STEP_SECONDS);
-                return;
-            }
         }
+        return Execution.of(demo, steps, Collections.emptyList());
     }
 
-    private static void doKruskalAnimation(Demo demo, GraphStreamGraph graphStreamGraph) {
-        KruskalSnapshot kruskalSnapshot = new KruskalSnapshot(demo);
-        boolean shouldDisplay = false; // used for display(FAST_STEP_SECONDS)
-        while(true) {
-            List<Edge> oldChosenEdges = new ArrayList<>(kruskalSnapshot.getChosenEdges());
-            graphStreamGraph.getEdges().values().forEach(edge ->
-                    edge.setAttribute("ui.style", "fill-color: black;"));
-            kruskalSnapshot.step(); // analogous to search() for Dijkstra
-            for (Edge edge : kruskalSnapshot.getChosenEdges()) {
-                graphStreamGraph.getEdge(edge).setAttribute("ui.style", "fill-color: green;");
-                if (!oldChosenEdges.contains(edge)) {
-                    if (shouldDisplay) {
-                        // Display the a->b and b->a edges together instead of separately
-                        display(FAST_STEP_SECONDS);
-                        shouldDisplay = false;
-                    } else {
-                        shouldDisplay = true;
-                    }
+    /**
+     * Records one step per node, in the same order and stopping at the same node as the sequential BFS
+     */
+    private static Execution executeParallelBfs(Demo demo, GraphIndex index, Probe probe) {
+        ParallelBfsSnapshot bfsSnapshot = new ParallelBfsSnapshot(index, demo.getStart());
+        List<Step> steps = new ArrayList<>();
+        while (!bfsSnapshot.isDone()) {
+            probe.queued(bfsSnapshot.getFrontierSize());
+            for (Node node : bfsSnapshot.getFrontier()) {
+                steps.add(Step.of(node, Collections.emptyList(), Collections.emptyList()));
+                if (node.equals(demo.getEnd())) {
+                    return Execution.of(demo, steps, Collections.emptyList());
                 }
             }
-            if (kruskalSnapshot.isOver()) { // analogous to getCurrent == null, or current == end for Dijkstra
-                display(SLOW_STEP_SECONDS);
-                break;
-            }
+            probe.expanded(bfsSnapshot.getFrontierSize(), bfsSnapshot.getFrontierEdges());
+            bfsSnapshot.step();
         }
+        return Execution.of(demo, steps, Collections.emptyList());
     }
 
-    private static void doPrimAnimation(Demo demo, GraphStreamGraph graphStreamGraph) {
-        PrimSnapshot primSnapshot = new PrimSnapshot(demo);
-        boolean shouldDisplay = false; // used for display(FAST_STEP_SECONDS)
+    private static Execution executeDijkstra(Demo demo, GraphIndex index, Probe probe) {
+        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(index, demo.getStart(), demo.getEnd());
+        List<Step> steps = new ArrayList<>();
         while (true) {
-            List<Edge> oldTree = new ArrayList<>(primSnapshot.getTree());
-            graphStreamGraph.getEdges().values().forEach(edge ->
-                    edge.setAttribute("ui.style", "fill-color: black;"));
-            primSnapshot.step(); // analogous to search() for Dijkstra
-            for (Edge edge : primSnapshot.getTree()) {
-                graphStreamGraph.getEdge(edge).setAttribute("ui.style", "fill-color: green;");
-                if (!oldTree.contains(edge)) {
-                    if (shouldDisplay) {
-                        // Display the a->b and b->a edges together instead of separately
-                        display(FAST_STEP_SECONDS);
-                        shouldDisplay = false;
-                    } else {
-                        shouldDisplay = true;
-                    }
-                }
+            probe.queued(dijkstraSnapshot.getToTraverse().size());
+            Step step = search(dijkstraSnapshot);
+            if (step == null) {
+                return Execution.of(demo, steps, Collections.emptyList());
             }
-            if (primSnapshot.isOver()) { // analogous to getCurrent == null, or current == end for Dijkstra
-                display(SLOW_STEP_SECONDS);
-                break;
+            steps.add(step);
+            if (step.getCurrent().equals(demo.getEnd())) {
+                List<Edge> path = new ArrayList<>(dijkstraSnapshot.pathTo(demo.getEnd()));
+                Collections.reverse(path);
+                return Execution.of(demo, steps, path);
             }
+            probe.expanded(index, step.getCurrent());
         }
     }
 
-    private static List<Edge> getPath(Node start, Node end, List<Edge> path) {
-        List<Edge> edges = new ArrayList<>();
-        Node current = end;
-        while (!current.equals(start)) {
-            Edge edgeEndingInCurrent = getEdgeTo(path, current);
-            edges.add(edgeEndingInCurrent);
-            current = edgeEndingInCurrent.getStart();
+    private static Execution executeDeltaStepping(Demo demo, GraphIndex index, Probe probe) {
+        DeltaSteppingSnapshot deltaSteppingSnapshot = new DeltaSteppingSnapshot(index, demo.getStart());
+        List<Step> steps = new ArrayList<>();
+        while (!deltaSteppingSnapshot.isDone()) {
+            probe.queued(deltaSteppingSnapshot.getQueueSize());
+            deltaSteppingSnapshot.step();
+            for (Node node : deltaSteppingSnapshot.getSettled()) {
+                probe.expanded(index, node);
+                steps.add(Step.of(node, Collections.emptyList(), Collections.emptyList()));
+                if (node.equals(demo.getEnd())) {
+                    List<Edge> path = new ArrayList<>(deltaSteppingSnapshot.pathTo(demo.getEnd()));
+                    Collections.reverse(path);
+                    return Execution.of(demo, steps, path);
+                }
+            }
         }
-        return edges;
+        return Execution.of(demo, steps, Collections.emptyList());
     }
 
-    private static Edge getEdgeTo(List<Edge> edges, Node node) {
-        return edges.stream()
-                .filter(edge -> edge.getEnd().equals(node))
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("yikes"));
+    private static Execution executePath(Demo demo, GraphIndex index, Probe probe) {
+        PathSnapshot pathSnapshot = PATH_SNAPSHOT_SUPPLIERS.get(demo.getAlgorithm()).apply(demo, index);
+        List<Step> steps = new ArrayList<>();
+        while (!pathSnapshot.isDone()) {
+            probe.queued(pathSnapshot.getQueueSize());
+            pathSnapshot.step();
+            if (pathSnapshot.getCurrent() != null) {
+                probe.expanded(index, pathSnapshot.getCurrent());
+                steps.add(Step.of(pathSnapshot.getCurrent(), new ArrayList<>(pathSnapshot.getAdded()),
+                        new ArrayList<>(pathSnapshot.getRemoved())));
+            }
+        }
+        return Execution.of(demo, steps, pathSnapshot.getShortestPath());
     }
 
-    // loop for n seconds
-    private static void display(int seconds) {
-        DateTime startTime = new DateTime();
-        while (Seconds.secondsBetween(startTime, new DateTime()).getSeconds() < seconds) {
-            // loop
+    private static Execution executePrim(Demo demo, GraphIndex index, Probe probe) {
+        PrimSnapshot primSnapshot = new PrimSnapshot(index, demo.getStart());
+        List<Step> steps = new ArrayList<>();
+        while (!primSnapshot.isDone()) {
+            int treeSize = primSnapshot.getTree().size();
+            probe.queued(primSnapshot.getFrontier().size());
+            primSnapshot.step();
+            List<Edge> tree = primSnapshot.getTree();
+            if (tree.size() > treeSize) {
+                probe.expanded(index, primSnapshot.getCurrent());
+                steps.add(Step.of(primSnapshot.getCurrent(), new ArrayList<>(tree.subList(treeSize, tree.size())),
+                        Collections.emptyList()));
+            }
         }
+        return Execution.of(demo, steps, new ArrayList<>(primSnapshot.getTree()));
     }
 
-    private static <T extends Collection<Node>> SearchSnapshot search(Demo demo, SearchSnapshot<T> searchSnapshot) {
-        T toTraverse = searchSnapshot.getToTraverse();
-        Set<Node> visited = searchSnapshot.getVisited();
-        if (toTraverse.isEmpty()) {
-            searchSnapshot.setCurrent(null);
-            return searchSnapshot;
+    private static Execution executeKruskal(Demo demo, GraphIndex index, Probe probe) {
+        KruskalSnapshot kruskalSnapshot = new KruskalSnapshot(index);
+        List<Step> steps = new ArrayList<>();
+        while (!kruskalSnapshot.isDone()) {
+            int treeSize = kruskalSnapshot.getChosenEdges().size();
+            int considered = kruskalSnapshot.getEdgesConsidered();
+            kruskalSnapshot.step();
+            probe.expanded(0, kruskalSnapshot.getEdgesConsidered() - considered);
+            List<Edge> tree = kruskalSnapshot.getChosenEdges();
+            if (tree.size() > treeSize) {
+                steps.add(Step.of(null, new ArrayList<>(tree.subList(treeSize, tree.size())), Collections.emptyList()));
+            }
         }
-        Node current = searchSnapshot.getNextNodeProvider().get();
-        if (!visited.contains(current)) {
-            searchSnapshot.setCurrent(current);
-            if (current.equals(demo.getEnd())) {
-                visited.add(current);
-                return searchSnapshot;
+        return Execution.of(demo, steps, new ArrayList<>(kruskalSnapshot.getChosenEdges()));
+    }
+
+    private static Execution executeBoruvka(Demo demo, GraphIndex index, Probe probe) {
+        BoruvkaSnapshot boruvkaSnapshot = new BoruvkaSnapshot(index);
+        List<Step> steps = new ArrayList<>();
+        while (!boruvkaSnapshot.isDone()) {
+            int treeSize = boruvkaSnapshot.getChosenEdges().size();
+            boruvkaSnapshot.step();
+            probe.expanded(index.size(), index.edgeCount()); // every round goes through every edge
+            List<Edge> tree = boruvkaSnapshot.getChosenEdges();
+            if (tree.size() > treeSize) {
+                steps.add(Step.of(null, new ArrayList<>(tree.subList(treeSize, tree.size())), Collections.emptyList()));
             }
-            accessibleFrom(current, demo.getGraph().getEdges())
-                    .forEach(node -> searchSnapshot.getNodeAdder().accept(node));
-            visited.add(current);
-            return searchSnapshot;
         }
-        // already visited this node
-        return search(demo, searchSnapshot);
+        return Execution.of(demo, steps, boruvkaSnapshot.getChosenEdges());
     }
 
-    private static DijkstraSnapshot search(Demo demo, DijkstraSnapshot dijkstraSnapshot) {
-        List<Node> toTraverse = dijkstraSnapshot.getToTraverse();
-        if (toTraverse.isEmpty()) {
-            dijkstraSnapshot.setCurrent(null);
-            return dijkstraSnapshot;
+    /**
+     * Takes one {@link DijkstraSnapshot#step()} and returns the node it settled with the edges that entered and left
+     * the shortest-path tree, or null once the snapshot is done
+     */
+    @VisibleForTesting
+    static Step search(DijkstraSnapshot dijkstraSnapshot) {
+        if (dijkstraSnapshot.isDone()) {
+            return null;
         }
-        Node current = dijkstraSnapshot.getNext();
-        dijkstraSnapshot.setCurrent(current);
-        if (current.equals(demo.getEnd())) {
-            return dijkstraSnapshot;
+        dijkstraSnapshot.step();
+        GraphIndex index = dijkstraSnapshot.getIndex();
+        List<Edge> added = new ArrayList<>(dijkstraSnapshot.getAddedCount());
+        for (int i = 0; i < dijkstraSnapshot.getAddedCount(); i++) {
+            added.add(index.edge(dijkstraSnapshot.getAddedSlots()[i]));
         }
-        for (Edge edge : outgoingEdges(current, demo.getGraph().getEdges())) {
-            double alt = dijkstraSnapshot.getDist().get(current) + edge.getWeight();
-            if (alt < dijkstraSnapshot.getDist().get(edge.getEnd())) {
-                dijkstraSnapshot.getDist().put(edge.getEnd(), alt);
-                dijkstraSnapshot.insertEdge(edge);
-            }
+        List<Edge> removed = new ArrayList<>(dijkstraSnapshot.getRemovedCount());
+        for (int i = 0; i < dijkstraSnapshot.getRemovedCount(); i++) {
+            removed.add(index.edge(dijkstraSnapshot.getRemovedSlots()[i]));
         }
-        return dijkstraSnapshot;
+        return Step.of(dijkstraSnapshot.getCurrent(), added, removed);
+    }
+
+    /**
+     * Checks the demo in one O(V + E) pass and reports every problem that keeps it from running: duplicate nodes and
+     * edges, edges to nodes that don't exist, a missing start node, and for algorithms that need them, missing
+     * weights and reverse edges
+     */
+    public static ValidationReport validate(Demo demo) {
+        return Validator.validate(demo.getGraph(), demo.getAlgorithm(), demo.getStart());
     }
 
-    public static List<Node> accessibleFrom(Node begin, List<Edge> edges) {
-        return edges.stream()
-                .filter(edge -> edge.getStart().equals(begin))
-                .map(Edge::getEnd)
-                .collect(Collectors.toList());
+    static void validateDemo(Demo demo) {
+        long started = Metrics.start();
+        ValidationReport report = validate(demo);
+        Metrics.stop(Phase.VALIDATE, started);
+        if (!report.isValid()) {
+            throw new ValidationException(report);
+        }
+        // non-existent end node is ok
     }
 
-    public static List<Edge> outgoingEdges(Node begin, List<Edge> edges) {
-        return edges.stream()
-                .filter(edge -> edge.getStart().equals(begin))
-                .collect(Collectors.toList());
+    static void validateGraph(model.Graph graph) {
+        long started = Metrics.start();
+        ValidationReport report = Validator.validate(graph, Algorithm.NOTHING, null);
+        Metrics.stop(Phase.VALIDATE, started);
+        if (!report.isValid()) {
+            throw new ValidationException(report);
+        }
     }
 
-    private static void validateDemo(Demo demo) {
-        model.Graph graph = demo.getGraph();
-        List<Edge> edges = graph.getEdges();
-        if (new HashSet<>(edges).size() != edges.size()) {
-            throw new InterpreterException("Duplicate edges");
+    /**
+     * Passes the changes on to the sink, pausing after every so many added edges
+     */
+    private static class PacedSink implements TraceSink {
+        private final TraceSink sink;
+        private final int edgesPerPause;
+        private int edges = 0;
+
+        PacedSink(TraceSink sink, int edgesPerPause) {
+            this.sink = sink;
+            this.edgesPerPause = edgesPerPause;
         }
-        List<Node> nodes = graph.getNodes();
-        if (new HashSet<>(nodes).size() != nodes.size()) {
-            throw new InterpreterException("Duplicate nodes");
+
+        @Override
+        public void nodeVisited(int node) {
+            sink.nodeVisited(node);
         }
 
-        for (Edge edge : edges) {
-            if (!nodes.contains(edge.getStart())) {
-                throw new InterpreterException("Node " + edge.getStart() + " does not exist");
-            }
-            if (!nodes.contains(edge.getEnd())) {
-                throw new InterpreterException("Node " + edge.getEnd() + " does not exist");
-            }
+        @Override
+        public void nodeLeft(int node) {
+            sink.nodeLeft(node);
         }
-        if (demo.getAlgorithm() != Algorithm.NOTHING) {
-            if (!nodes.contains(demo.getStart())) {
-                throw new InterpreterException("Demo must begin with a node that exists in the graph");
+
+        @Override
+        public void nodeFound(int node) {
+            sink.nodeFound(node);
+        }
+
+        @Override
+        public void edgeAdded(int edge) {
+            sink.edgeAdded(edge);
+            if (++edges % edgesPerPause == 0) {
+                sink.pause(FAST_STEP_MILLIS);
             }
         }
-        // non-existent end node is ok
+
+        @Override
+        public void edgeRemoved(int edge) {
+            sink.edgeRemoved(edge);
+        }
+
+        @Override
+        public void edgeChosen(int edge) {
+            sink.edgeChosen(edge);
+        }
+
+        @Override
+        public void pause(int millis) {
+            sink.pause(millis);
+        }
     }
 }
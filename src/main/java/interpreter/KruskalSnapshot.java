@@ -3,12 +3,10 @@ package interpreter;
 import lombok.Data;
 import model.Demo;
 import model.Edge;
-import model.Node;
+import model.GraphIndex;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.Map;
 
 // Undirected graph algorithm, so edges need matching reverse edge
 // ^ Update: doesn't actually need matching reverse edges but without them it would
@@ -22,102 +20,146 @@ public class KruskalSnapshot implements Snapshot {
         Kruskal's algorithm:
             tl;dr Keep adding the lowest cost edge that connects vertices until all vertices are connected
     */
-    // Each node is mapped to its own tree, i.e. the treeOfNode
-    // Joining two trees sets them to have the same int
-    Map<Node, Integer> nodeToTree = new HashMap<>(); // Each node starts as its own tree, numbered from 0
-    List<List<Node>> treeToNodes = new ArrayList<>(); // Mapping of tree index back to a list of nodes. List index is tree number.
-    List<Edge> chosenEdges = new ArrayList<>(); // What eventually becomes the minimum spanning tree of the graph
-    List<Edge> remainingEdges = new ArrayList<>();
-    int numTrees = 0;
+    // Each node starts as its own tree in the forest, keyed by its GraphIndex id.
+    // Joining two trees unions their sets.
+    DisjointSets trees;
+    // Slots of what eventually becomes the minimum spanning tree of the graph, each followed by its reverse
+    int[] chosenSlots;
+    int chosenSize = 0;
+    int[] reverses; // slot of the b->a edge matching the a->b edge in each slot
+    GraphIndex index;
+    // Every edge slot sorted once by weight; ties keep graph order so the earliest minimum edge wins
+    int[] sortedEdges;
+    int nextEdge = 0; // edges before this position either got chosen or would close a cycle
     boolean canContinue = true;
+    TraceSink sink = TraceSink.NONE;
 
     public KruskalSnapshot(Demo demo) {
-        demo.getGraph().getNodes().forEach(node -> {
-            this.nodeToTree.put(node, numTrees++);
-            List<Node> tree = new ArrayList<>();
-            tree.add(node);
-            this.treeToNodes.add(tree);
-        });
-        demo.getGraph().getEdges().forEach(edge -> {
-            this.remainingEdges.add(edge);
-        });
-        // ensure all edges have a reversed edge
-        for (Edge edge : this.remainingEdges) {
-            if (!remainingEdges.contains(Edge.of(edge.getEnd(), edge.getStart(), edge.getWeight()))) {
+        this(GraphIndex.of(demo.getGraph()));
+    }
+
+    public KruskalSnapshot(GraphIndex index) {
+        reverses = new int[index.edgeCount()];
+        for (int slot = 0; slot < index.edgeCount(); slot++) {
+            double weight = index.weight(slot);
+            if (Double.isNaN(weight)) {
+                throw new InterpreterException("Kruskal's Algorithm requires every edge to have a weight");
+            }
+            // ensure all edges have a reversed edge
+            reverses[slot] = index.find(index.target(slot), index.source(slot), weight);
+            if (reverses[slot] == -1) {
                 throw new InterpreterException("Kruskal's Algorithm requires an undirected graph (bidirectional edges)");
             }
         }
+        this.index = index;
+        this.trees = new DisjointSets(index.size());
+        this.chosenSlots = new int[2 * Math.max(index.size() - 1, 0)];
+        this.sortedEdges = sortByWeight(index);
     }
 
+    /**
+     * Stable merge sort by weight of the edge slots, starting from graph order
+     */
+    private static int[] sortByWeight(GraphIndex index) {
+        int[] sorted = new int[index.edgeCount()];
+        for (int slot = 0; slot < sorted.length; slot++) {
+            sorted[index.edgeId(slot)] = slot;
+        }
+        int[] buffer = new int[sorted.length];
+        for (int width = 1; width < sorted.length; width *= 2) {
+            for (int low = 0; low < sorted.length - width; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, sorted.length);
+                int left = low;
+                int right = middle;
+                for (int i = low; i < high; i++) {
+                    if (right >= high || (left < middle && index.weight(sorted[left]) <= index.weight(sorted[right]))) {
+                        buffer[i] = sorted[left++];
+                    } else {
+                        buffer[i] = sorted[right++];
+                    }
+                }
+                System.arraycopy(buffer, low, sorted, low, high - low);
+            }
+        }
+        return sorted;
+    }
 
-    public boolean isOver() {
-        return this.numTrees <= 1 || this.remainingEdges.size() == 0 || !this.canContinue;
+    public int getNumTrees() {
+        return trees.count();
     }
 
     /**
-     * Returns whether the edge joins two trees (start and end node are in different trees)
+     * Number of edges taken or skipped so far, cheapest first
      */
-    private boolean joinsTwoTrees(Edge edge) {
-        Node start = edge.getStart();
-        Node end = edge.getEnd();
-        int startTree = nodeToTree.get(start);
-        int endTree = nodeToTree.get(end);
-        return startTree != endTree;
+    public int getEdgesConsidered() {
+        return nextEdge;
     }
 
+    /**
+     * The edges chosen so far, each followed by its reverse, in the order they were chosen
+     */
+    public List<Edge> getChosenEdges() {
+        return new AbstractList<Edge>() {
+            @Override
+            public Edge get(int i) {
+                if (i >= chosenSize) {
+                    throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + chosenSize);
+                }
+                return index.edge(chosenSlots[i]);
+            }
+
+            @Override
+            public int size() {
+                return chosenSize;
+            }
+        };
+    }
+
+    public boolean isDone() {
+        return getNumTrees() <= 1 || this.sortedEdges.length == 0 || !this.canContinue;
+    }
 
     /**
      * Take a step in Kruskal's algorithm, greedily joining two trees
      */
     public void step() {
-        Edge nextEdge = getNextEdge();
-        if (nextEdge == null) {
+        if (isDone()) {
+            return;
+        }
+        int next = getNextEdge();
+        if (next == -1) {
             this.canContinue = false;
         } else {
-            joinTreesByEdge(nextEdge);
+            joinTreesByEdge(next);
         }
     }
 
     /**
      * Modify internal state to reflect joining of two trees
      */
-    private void joinTreesByEdge(Edge edge){
-        // Add the edge to the chosenEdges
-        this.chosenEdges.add(edge);
-        this.chosenEdges.add(Edge.of(edge.getEnd(), edge.getStart(), edge.getWeight()));
-        // Transplant the end node's tree into the start node's tree
-        Node start = edge.getStart();
-        Node end = edge.getEnd();
-        int startTree = this.nodeToTree.get(start);
-        int endTree = this.nodeToTree.get(end);
-        List<Node> endTreeNodes = treeToNodes.get(endTree); // the nodes to transplant
-        // Update the node -> tree mapping for the end nodes
-        for (Node node : endTreeNodes) {
-            this.nodeToTree.put(node, startTree);
-        }
-        // Update the tree -> nodes mapping by dumping the end nodes into the start node's tree
-        List<Node> startTreeNodes = treeToNodes.get(startTree);
-        for (Node node : endTreeNodes) {
-            startTreeNodes.add(node);
-        }
-        // Dump the list containing the old end node's tree
-        this.treeToNodes.set(endTree, new ArrayList<>());
-        // Update tree counter
-        --this.numTrees;
+    private void joinTreesByEdge(int position) {
+        int slot = sortedEdges[position];
+        // Add the edge and its reverse to the chosen edges
+        this.chosenSlots[chosenSize++] = slot;
+        this.chosenSlots[chosenSize++] = reverses[slot];
+        sink.edgeAdded(index.edgeId(slot));
+        sink.edgeAdded(index.edgeId(reverses[slot]));
+        this.trees.union(index.source(slot), index.target(slot));
     }
 
-    private Edge getNextEdge() {
-        Edge minEdge = null;
-        double minLength = Double.POSITIVE_INFINITY;
-        for (Edge edge : this.remainingEdges) {
-            if (!joinsTwoTrees(edge)) {
-                continue;
-            }
-            if (edge.getWeight() < minLength) {
-                minEdge = edge;
-                minLength = edge.getWeight();
+    /**
+     * Returns the position in sortedEdges of the cheapest edge joining two trees, or -1 if there is none.
+     * Trees only ever merge, so an edge that is skipped here can never join two trees later.
+     */
+    private int getNextEdge() {
+        while (nextEdge < sortedEdges.length) {
+            int position = nextEdge++;
+            int slot = sortedEdges[position];
+            if (trees.find(index.source(slot)) != trees.find(index.target(slot))) {
+                return position;
             }
         }
-        return minEdge;
+        return -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,273 @@
+package interpreter;
+
+import lombok.Data;
+import model.Demo;
+import model.GraphIndex;
+import model.Node;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Data
+public class ParallelBfsSnapshot implements Snapshot {
+    /*
+        Level-synchronous BFS:
+            tl;dr BFS one whole level at a time, with the nodes of each level expanded in parallel
+            Each step either pushes from the frontier along outgoing edges (top-down) or lets every unvisited node
+            look for a frontier node along its incoming edges (bottom-up), whichever reads fewer edges
+
+        The sequential BFS visits a node when its first copy leaves the queue, so its parent is the earliest
+        expanded node with an edge to it, and a level comes out in order of (parent's place in the previous
+        level, position of the edge in the parent's adjacency). Every node discovered in a level is keyed by that
+        pair, the smallest key wins, and sorting the keys gives the next level in exactly the sequential order.
+    */
+    private static final long UNCLAIMED = Long.MAX_VALUE;
+    private static final int GRAIN = 1024; // nodes per fork-join task
+
+    GraphIndex index;
+    ForkJoinPool pool;
+    int target; // -1 to visit every reachable node
+    boolean done;
+    int[] levels; // indexed by node id, -1 if not visited
+    int[] parents; // node id each node was reached from, -1 for the start and unvisited nodes
+    AtomicLongArray keys; // (parent's position in its level << 32 | edge position in the parent's adjacency)
+    int[] frontier; // the current level, in visit order
+    int frontierSize;
+    int[] nextFrontier; // the level being built, swapped with frontier after each step
+    int shownSize; // size of the level the sink last saw visited, kept in nextFrontier after the swap
+    int[] positions; // place of each node in the current level, -1 if it is not in it
+    int[] discovered; // nodes claimed while expanding the current level, in no particular order
+    AtomicInteger discoveredSize = new AtomicInteger();
+    int depth = 0;
+    long frontierEdges; // outgoing edges of the current level
+    long unvisitedEdges; // incoming edges of unvisited nodes
+    TraceSink sink = TraceSink.NONE;
+
+    public ParallelBfsSnapshot(Demo demo) {
+        this(GraphIndex.of(demo.getGraph()), demo.getStart(), demo.getEnd());
+    }
+
+    public ParallelBfsSnapshot(GraphIndex index, Node start) {
+        this(index, start, null);
+    }
+
+    public ParallelBfsSnapshot(GraphIndex index, Node start, Node end) {
+        this(index, start, end, ForkJoinPool.commonPool());
+    }
+
+    public ParallelBfsSnapshot(GraphIndex index, Node start, Node end, ForkJoinPool pool) {
+        this.index = index;
+        this.pool = pool;
+        target = end == null ? -1 : index.id(end);
+        int size = index.size();
+        levels = new int[size];
+        parents = new int[size];
+        positions = new int[size];
+        Arrays.fill(levels, -1);
+        Arrays.fill(parents, -1);
+        Arrays.fill(positions, -1);
+        keys = new AtomicLongArray(size);
+        for (int id = 0; id < size; id++) {
+            keys.set(id, UNCLAIMED);
+        }
+        frontier = new int[size];
+        nextFrontier = new int[size];
+        discovered = new int[size];
+        unvisitedEdges = index.edgeCount();
+        int startId = index.id(start);
+        if (startId != -1) {
+            visit(startId, 0);
+            frontier[frontierSize++] = startId;
+            positions[startId] = 0;
+        }
+    }
+
+    private void visit(int id, int level) {
+        levels[id] = level;
+        frontierEdges += index.end(id) - index.begin(id);
+        unvisitedEdges -= index.incomingEnd(id) - index.incomingBegin(id);
+    }
+
+    /**
+     * The current level, in the order the sequential BFS visits it
+     */
+    public List<Node> getFrontier() {
+        return new AbstractList<Node>() {
+            @Override
+            public Node get(int i) {
+                return index.node(frontier[i]);
+            }
+
+            @Override
+            public int size() {
+                return frontierSize;
+            }
+        };
+    }
+
+    /**
+     * Number of edges on the shortest path from the start to the node, -1 if it has not been reached
+     */
+    public int getLevel(Node node) {
+        int id = index.id(node);
+        return id == -1 ? -1 : levels[id];
+    }
+
+    /**
+     * The node the sequential BFS would have reached this one from, null for the start and unreached nodes
+     */
+    public Node getParent(Node node) {
+        int id = index.id(node);
+        return id == -1 || parents[id] == -1 ? null : index.node(parents[id]);
+    }
+
+    /**
+     * Expands the current level, replacing it with the next one. The sink sees the level before it left and the
+     * current one visited, then the end node found instead of the level expanded once it is in it.
+     */
+    public void step() {
+        if (done) {
+            return;
+        }
+        for (int i = 0; i < shownSize; i++) {
+            sink.nodeLeft(nextFrontier[i]);
+        }
+        shownSize = 0;
+        if (frontierSize == 0) {
+            done = true;
+            return;
+        }
+        for (int i = 0; i < frontierSize; i++) {
+            sink.nodeVisited(frontier[i]);
+        }
+        if (target != -1 && levels[target] == depth) {
+            sink.nodeFound(target);
+            done = true;
+            return;
+        }
+        discoveredSize.set(0);
+        boolean bottomUp = frontierEdges > unvisitedEdges;
+        pool.invoke(new Expand(0, bottomUp ? index.size() : frontierSize, bottomUp));
+
+        int count = discoveredSize.get();
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = keys.get(discovered[i]);
+        }
+        Arrays.parallelSort(sorted);
+
+        for (int i = 0; i < frontierSize; i++) {
+            positions[frontier[i]] = -1;
+        }
+        depth++;
+        frontierEdges = 0;
+        for (int i = 0; i < count; i++) {
+            int parent = frontier[(int) (sorted[i] >>> 32)];
+            int id = index.target(index.begin(parent) + (int) sorted[i]);
+            parents[id] = parent;
+            visit(id, depth);
+            nextFrontier[i] = id;
+            positions[id] = i;
+        }
+        int[] previous = frontier;
+        frontier = nextFrontier;
+        nextFrontier = previous;
+        shownSize = frontierSize;
+        frontierSize = count;
+    }
+
+    private static long key(int position, int offset) {
+        return (long) position << 32 | offset;
+    }
+
+    /**
+     * Expands a range of the frontier (top-down) or of the node ids (bottom-up), splitting it across the pool
+     */
+    private class Expand extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final boolean bottomUp;
+
+        Expand(int from, int to, boolean bottomUp) {
+            this.from = from;
+            this.to = to;
+            this.bottomUp = bottomUp;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Expand(from, middle, bottomUp), new Expand(middle, to, bottomUp));
+                return;
+            }
+            int[] claimed = new int[Math.min(to - from, 64)];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (bottomUp) {
+                    if (levels[i] == -1 && lookBack(i)) {
+                        claimed = append(claimed, count++, i);
+                    }
+                } else {
+                    int id = frontier[i];
+                    int begin = index.begin(id);
+                    for (int slot = begin; slot < index.end(id); slot++) {
+                        int next = index.target(slot);
+                        if (levels[next] == -1 && claim(next, key(i, slot - begin))) {
+                            claimed = append(claimed, count++, next);
+                        }
+                    }
+                }
+            }
+            System.arraycopy(claimed, 0, discovered, discoveredSize.getAndAdd(count), count);
+        }
+    }
+
+    /**
+     * Lowers the node's key, returns whether this was the first claim on it
+     */
+    private boolean claim(int id, long key) {
+        long current = keys.get(id);
+        while (key < current) {
+            if (keys.compareAndSet(id, current, key)) {
+                return current == UNCLAIMED;
+            }
+            current = keys.get(id);
+        }
+        return false;
+    }
+
+    /**
+     * Keys an unvisited node by its best incoming edge from the frontier, returns whether it has one. Every
+     * incoming edge is read, as stopping at the first frontier node found could pick a different parent than the
+     * sequential BFS.
+     */
+    private boolean lookBack(int id) {
+        long best = UNCLAIMED;
+        for (int i = index.incomingBegin(id); i < index.incomingEnd(id); i++) {
+            int slot = index.incomingSlot(i);
+            int source = index.source(slot);
+            if (positions[source] != -1) {
+                best = Math.min(best, key(positions[source], slot - index.begin(source)));
+            }
+        }
+        if (best == UNCLAIMED) {
+            return false;
+        }
+        keys.set(id, best);
+        return true;
+    }
+
+    private static int[] append(int[] ids, int count, int id) {
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(2 * count, 1));
+        }
+        ids[count] = id;
+        return ids;
+    }
+}
@@ -0,0 +1,172 @@
+package interpreter;
+
+import lombok.Data;
+import model.Edge;
+import model.GraphIndex;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A point-to-point search from demo.start() to demo.end(). Every step expands one node and records which edges it
+ * added to and removed from the search trees, so a run can be traced or animated one step at a time. Once the search
+ * is over, one more step sends the shortest path to the sink.
+ */
+@Data
+public abstract class PathSnapshot implements Snapshot {
+    GraphIndex index;
+    int source;
+    int target; // -1 if the end node is not in the graph
+    Node current; // node expanded by the last step
+    List<Edge> added = new ArrayList<>(); // edges the last step added to the search trees
+    List<Edge> removed = new ArrayList<>(); // edges the last step replaced
+    boolean done; // the search is over
+    boolean finished; // and the shortest path has been sent to the sink
+    TraceSink sink = TraceSink.NONE;
+
+    PathSnapshot(GraphIndex index, Node start, Node end) {
+        this.index = index;
+        this.source = index.id(start);
+        this.target = index.id(end);
+    }
+
+    public boolean isDone() {
+        return finished;
+    }
+
+    /**
+     * Leaves the node expanded last and expands the next one. Once the search is over it instead sends the edges of
+     * the shortest path to the sink as chosen, then the end node as found if the path reaches it.
+     */
+    public void step() {
+        if (finished) {
+            return;
+        }
+        Node previous = current;
+        added.clear();
+        removed.clear();
+        current = null;
+        if (done) {
+            finished = true;
+            int[] path = getPathSlots();
+            for (int slot : path) {
+                sink.edgeChosen(index.edgeId(slot));
+            }
+            if (path.length > 0 || (target != -1 && source == target)) {
+                sink.nodeFound(target);
+            }
+            return;
+        }
+        if (previous != null) {
+            sink.nodeLeft(index.id(previous));
+        }
+        expandNext();
+    }
+
+    /**
+     * Expands the next node, setting done once the search is over
+     */
+    abstract void expandNext();
+
+    /**
+     * Nodes waiting to be expanded, from both ends for the bidirectional searches
+     */
+    public abstract int getQueueSize();
+
+    /**
+     * Length of the best path found so far, +infinity if there is none yet
+     */
+    public abstract double getDistance();
+
+    /**
+     * Slots of the edges of the best path found so far in order from start to end, empty if there is none
+     */
+    abstract int[] getPathSlots();
+
+    /**
+     * Edges of the best path found so far in order from start to end, empty if there is none
+     */
+    public List<Edge> getShortestPath() {
+        int[] path = getPathSlots();
+        List<Edge> edges = new ArrayList<>(path.length);
+        for (int slot : path) {
+            edges.add(index.edge(slot));
+        }
+        return edges;
+    }
+
+    /**
+     * Makes the node the one this step expands
+     */
+    void expand(int id) {
+        current = index.node(id);
+        sink.nodeVisited(id);
+    }
+
+    /**
+     * Adds the edge in the slot to the search trees
+     */
+    void add(int slot) {
+        added.add(index.edge(slot));
+        sink.edgeAdded(index.edgeId(slot));
+    }
+
+    /**
+     * Removes the edge in the slot from the search trees
+     */
+    void remove(int slot) {
+        removed.add(index.edge(slot));
+        sink.edgeRemoved(index.edgeId(slot));
+    }
+
+    /**
+     * Number of edges on the predecessor slots back from the node to the start
+     */
+    int forwardLength(int[] predecessors, int id) {
+        int length = 0;
+        for (int slot = predecessors[id]; slot != -1; slot = predecessors[index.source(slot)]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Follows predecessor slots back from the node to the start, filling the path in start to node order so that
+     * it ends just before the given position
+     */
+    void fillForward(int[] path, int end, int[] predecessors, int id) {
+        for (int slot = predecessors[id]; slot != -1; slot = predecessors[index.source(slot)]) {
+            path[--end] = slot;
+        }
+    }
+
+    /**
+     * Number of edges on the successor slots on from the node to the end
+     */
+    int backwardLength(int[] successors, int id) {
+        int length = 0;
+        for (int slot = successors[id]; slot != -1; slot = successors[index.target(slot)]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Follows successor slots on from the node to the end, filling the path in node to end order from the given
+     * position
+     */
+    void fillBackward(int[] path, int begin, int[] successors, int id) {
+        for (int slot = successors[id]; slot != -1; slot = successors[index.target(slot)]) {
+            path[begin++] = slot;
+        }
+    }
+
+    static void requireWeights(GraphIndex index, String algorithm) {
+        for (int slot = 0; slot < index.edgeCount(); slot++) {
+            if (Double.isNaN(index.weight(slot))) {
+                throw new InterpreterException(algorithm + " requires every edge to have a weight");
+            }
+        }
+    }
+}
@@ -3,12 +3,11 @@ package interpreter;
 import lombok.Data;
 import model.Demo;
 import model.Edge;
+import model.GraphIndex;
 import model.Node;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.Map;
 
 // Undirected graph algorithm, so edges need matching reverse edge
 // Ignores demo.end() since algorithm generates a minimum spanning tree
@@ -20,97 +19,151 @@ public class PrimSnapshot implements Snapshot {
             tl;dr Like Dijkstra's but priority queue is not path cost but edge cost
             i.e. keep growing the tree by adding the closest neighbor that's not in the tree yet
     */
-    List<Edge> tree = new ArrayList<>();
-    List<Node> remainingNodes = new ArrayList<>();
-    List<Edge> remainingEdges = new ArrayList<>();
-    Map<Node, Boolean> isInTree = new HashMap<>();
-    Node current; // guaranteed to be in tree
+    GraphIndex index;
+    // Slots of the tree's edges, each followed by its reverse, in the order they joined
+    int[] treeSlots;
+    int treeSize = 0;
+    int[] reverses; // slot of the b->a edge matching the a->b edge in each slot
+    // Every edge leaving the tree, keyed by weight. Edges are pushed when their start joins the tree and
+    // only discarded lazily once their end has joined too.
+    IndexedMinHeap frontier;
+    // Heap ids are ranks: edges ordered by end node id, then by graph order. Equal weights therefore pop in the
+    // same order the old scan over remaining nodes and edges picked them.
+    int[] rankOfSlot;
+    int[] slotOfRank;
+    boolean[] isInTree;
+    int remainingNodes;
+    int remainingEdges;
+    int currentId = -1; // guaranteed to be in tree
     Boolean canContinue = true;
+    TraceSink sink = TraceSink.NONE;
 
     public PrimSnapshot(Demo demo) {
-        demo.getGraph().getNodes().forEach(node -> {
-            // Put the start node into the tree, set current to it;
-            // and everything else goes into remainingNodes
-            if (node.equals(demo.getStart())) {
-                current = node;
-                isInTree.put(node, true);
-            } else {
-                remainingNodes.add(node);
-                isInTree.put(node, false);
+        this(GraphIndex.of(demo.getGraph()), demo.getStart());
+    }
+
+    public PrimSnapshot(GraphIndex index, Node start) {
+        reverses = new int[index.edgeCount()];
+        for (int slot = 0; slot < index.edgeCount(); slot++) {
+            double weight = index.weight(slot);
+            if (Double.isNaN(weight)) {
+                throw new InterpreterException("Prim's Algorithm requires every edge to have a weight");
             }
-        });
-        remainingEdges.addAll(demo.getGraph().getEdges());
-        // ensure all edges have a reversed edge
-        for (Edge edge : remainingEdges) {
-            if (!remainingEdges.contains(Edge.of(edge.getEnd(), edge.getStart(), edge.getWeight()))) {
+            // ensure all edges have a reversed edge
+            reverses[slot] = index.find(index.target(slot), index.source(slot), weight);
+            if (reverses[slot] == -1) {
                 throw new InterpreterException("Prim's Algorithm requires an undirected graph (bidirectional edges)");
             }
         }
+        this.index = index;
+        this.frontier = new IndexedMinHeap(index.edgeCount());
+        this.isInTree = new boolean[index.size()];
+        this.treeSlots = new int[2 * Math.max(index.size() - 1, 0)];
+        this.remainingNodes = index.size();
+        this.remainingEdges = index.edgeCount();
+        rankEdges();
+        // Put the start node into the tree, set current to it
+        int startId = index.id(start);
+        if (startId != -1) {
+            currentId = startId;
+            addToTree(startId);
+        }
+    }
+
+    /**
+     * Counting sort of the edge slots by end node, keeping graph order within each end node
+     */
+    private void rankEdges() {
+        int[] slotOfEdge = new int[index.edgeCount()];
+        int[] offsets = new int[index.size() + 1];
+        for (int slot = 0; slot < index.edgeCount(); slot++) {
+            slotOfEdge[index.edgeId(slot)] = slot;
+            offsets[index.target(slot) + 1]++;
+        }
+        for (int id = 0; id < index.size(); id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        rankOfSlot = new int[index.edgeCount()];
+        slotOfRank = new int[index.edgeCount()];
+        for (int edgeId = 0; edgeId < slotOfEdge.length; edgeId++) {
+            int slot = slotOfEdge[edgeId];
+            int rank = offsets[index.target(slot)]++;
+            rankOfSlot[slot] = rank;
+            slotOfRank[rank] = slot;
+        }
+    }
+
+    private void addToTree(int id) {
+        isInTree[id] = true;
+        remainingNodes--;
+        for (int slot = index.begin(id); slot < index.end(id); slot++) {
+            if (!isInTree[index.target(slot)]) {
+                frontier.push(rankOfSlot[slot], index.weight(slot));
+            }
+        }
     }
 
-    public boolean isOver() {
-        return remainingNodes.size() == 0 || remainingEdges.size() == 0 || !canContinue;
+    public boolean isDone() {
+        return remainingNodes == 0 || remainingEdges == 0 || !canContinue;
+    }
+
+    public Node getCurrent() {
+        return currentId == -1 ? null : index.node(currentId);
     }
 
     /**
-     * Returns the minimum edge from the tree to the node
-     * returns null if none exists
+     * The edges of the tree so far, each followed by its reverse, in the order they joined
      */
-    private Edge minEdgeFromTree(Node node) {
-        // Search in the remainingEdges that point to n.
-        Edge edge = null;
-        double minEdgeLength = Double.POSITIVE_INFINITY;
-        // Check all remaining edges. If it comes from the tree to the destination node n,
-        // take the minimum such edge and return it.
-        for (Edge e : remainingEdges) {
-            if (isInTree.get(e.getStart()) && e.getEnd().equals(node)) {
-                if (e.getWeight() < minEdgeLength) {
-                    minEdgeLength = e.getWeight();
-                    edge = e;
+    public List<Edge> getTree() {
+        return new AbstractList<Edge>() {
+            @Override
+            public Edge get(int i) {
+                if (i >= treeSize) {
+                    throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + treeSize);
                 }
+                return index.edge(treeSlots[i]);
             }
-        }
-        return edge;
-    }
 
+            @Override
+            public int size() {
+                return treeSize;
+            }
+        };
+    }
 
     /**
      * Take a step in Prim's algorithm, greedily adding the next edge and node to the MST
      */
     public void step() {
+        if (isDone()) {
+            return;
+        }
         // Find the next edge
-        Edge nextEdge = getNextEdge();
-        if (nextEdge == null) {
+        int nextSlot = getNextEdge();
+        if (nextSlot == -1) {
             canContinue = false;
         } else {
-            tree.add(nextEdge);
             // also add reverse edge
-            tree.add(Edge.of(nextEdge.getEnd(), nextEdge.getStart(), nextEdge.getWeight()));
-            remainingEdges.remove(nextEdge);
-            Node nextNode = nextEdge.getEnd();
-            current = nextNode;
-            remainingNodes.remove(nextNode);
-            isInTree.put(nextNode, true);
+            treeSlots[treeSize++] = nextSlot;
+            treeSlots[treeSize++] = reverses[nextSlot];
+            sink.edgeAdded(index.edgeId(nextSlot));
+            sink.edgeAdded(index.edgeId(reverses[nextSlot]));
+            remainingEdges--;
+            currentId = index.target(nextSlot);
+            addToTree(currentId);
         }
     }
 
     /**
-     * Returns the next edge in the growing MST (mininum spanning tree)
+     * Returns the slot of the next edge in the growing MST (mininum spanning tree), or -1 if there is none
      */
-    private Edge getNextEdge() {
-        Edge minEdge = null;
-        double minLength = Double.POSITIVE_INFINITY;
-        // Search in all remaining nodes.
-        for (Node node : remainingNodes) {
-            Edge minEdgeFromTreeToNode = minEdgeFromTree(node);
-            if (minEdgeFromTreeToNode != null) {
-                double distFromTree = minEdgeFromTreeToNode.getWeight();
-                if (distFromTree < minLength) {
-                    minLength = distFromTree;
-                    minEdge = minEdgeFromTreeToNode;
-                }
+    private int getNextEdge() {
+        while (!frontier.isEmpty()) {
+            int slot = slotOfRank[frontier.pop()];
+            if (!isInTree[index.target(slot)]) {
+                return slot;
             }
         }
-        return minEdge;
+        return -1;
     }
-}
\ No newline at end of file
+}
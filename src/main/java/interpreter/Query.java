@@ -0,0 +1,15 @@
+package interpreter;
+
+import lombok.Value;
+import model.Algorithm;
+import model.Node;
+
+/**
+ * A demo without its graph, to be answered by a {@link GraphSession}
+ */
+@Value(staticConstructor = "of")
+public class Query {
+    Algorithm algorithm;
+    Node start;
+    Node end;
+}
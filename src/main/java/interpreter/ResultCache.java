@@ -0,0 +1,234 @@
+package interpreter;
+
+import com.google.common.collect.MapMaker;
+import lombok.Value;
+import model.Algorithm;
+import model.CompactGraph;
+import model.Demo;
+import model.Edge;
+import model.Fingerprint;
+import model.Graph;
+import model.GraphIndex;
+import model.Node;
+import parser.Parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers recent executions so that running the same demo again skips the algorithm, and running the same
+ * program text again skips the parser too.
+ *
+ * Results are keyed by the {@link Fingerprint} of the graph plus the algorithm and whichever endpoints it uses, so
+ * equal graphs share entries however they were built. Dijkstra's keeps the full shortest-path tree of each start
+ * node instead, which answers every end node. Each table holds at most {@code capacity} entries and evicts the
+ * least recently used one. The compact form of each graph, with its fingerprint, is remembered for as long as the
+ * graph is in use, so a hit on a demo seen before costs a few map lookups. The cache is safe to share between
+ * threads.
+ */
+public class ResultCache {
+    private final Lru<Fingerprint, Demo> programs;
+    private final Lru<Key, Result> results;
+    private final Lru<Key, ShortestPathTree> trees;
+    private final Map<Graph, CompactGraph> compactGraphs = new MapMaker().weakKeys().makeMap(); // by identity
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResultCache(int capacity) {
+        programs = new Lru<>(capacity);
+        results = new Lru<>(capacity);
+        trees = new Lru<>(capacity);
+    }
+
+    public Execution execute(String concrete) {
+        Fingerprint text = Fingerprint.of(concrete);
+        Demo demo = programs.get(text);
+        if (demo == null) {
+            demo = Parser.parse(concrete);
+            programs.put(text, demo);
+        }
+        return execute(demo);
+    }
+
+    /**
+     * Returns what {@link Interpreter#execute(Demo)} returns for the demo, running it only on a cache miss
+     */
+    public Execution execute(Demo demo) {
+        CompactGraph graph = compactGraphs.get(demo.getGraph());
+        if (graph == null) {
+            graph = CompactGraph.of(demo.getGraph());
+            compactGraphs.put(demo.getGraph(), graph);
+        }
+        Key key = Key.of(graph.fingerprint(), demo);
+        if (demo.getAlgorithm() == Algorithm.DIJKSTRAS) {
+            ShortestPathTree tree = trees.get(key);
+            if (tree == null) {
+                misses.incrementAndGet();
+                Interpreter.validateDemo(demo);
+                tree = new ShortestPathTree(demo);
+                trees.put(key, tree);
+            } else {
+                hit(graph, demo);
+            }
+            return tree.answer(demo);
+        }
+        Result result = results.get(key);
+        if (result == null) {
+            misses.incrementAndGet();
+            result = Result.of(Interpreter.execute(demo));
+            results.put(key, result);
+        } else {
+            hit(graph, demo);
+        }
+        return Execution.of(demo, result.getSteps(), result.getEdges());
+    }
+
+    /**
+     * Keys may leave out the start node, but the start still has to exist. The cached run validated the rest, so in
+     * this graph every node name is a declared node.
+     */
+    private void hit(CompactGraph graph, Demo demo) {
+        if (demo.getAlgorithm() != Algorithm.NOTHING
+                && (demo.getStart() == null || graph.id(demo.getStart().getName()) == -1)) {
+            Interpreter.validateDemo(demo);
+        }
+        hits.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public void clear() {
+        programs.clear();
+        results.clear();
+        trees.clear();
+        compactGraphs.clear();
+    }
+
+    @Value(staticConstructor = "of")
+    private static class Key {
+        Fingerprint graph;
+        Algorithm algorithm;
+        Node start;
+        Node end;
+
+        /**
+         * Leaves out the endpoints the algorithm ignores, so demos that only differ in those share an entry
+         */
+        static Key of(Fingerprint graph, Demo demo) {
+            switch (demo.getAlgorithm()) {
+                case NOTHING:
+                case KRUSKALS:
+                case BORUVKAS:
+                    return of(graph, demo.getAlgorithm(), null, null);
+                case PRIMS:
+                case DIJKSTRAS: // the tree from the start answers every end
+                    return of(graph, demo.getAlgorithm(), demo.getStart(), null);
+                default:
+                    return of(graph, demo.getAlgorithm(), demo.getStart(), demo.getEnd());
+            }
+        }
+    }
+
+    /**
+     * An execution without its demo, so that cached entries don't keep the graph alive
+     */
+    @Value(staticConstructor = "of")
+    private static class Result {
+        List<Step> steps;
+        List<Edge> edges;
+
+        static Result of(Execution execution) {
+            return of(Collections.unmodifiableList(execution.getSteps()), Collections.unmodifiableList(execution.getEdges()));
+        }
+    }
+
+    /**
+     * Dijkstra's run from one start node until every reachable node is settled. A run towards an end node is the
+     * prefix of this one up to where the end node gets settled, and the tree edges into the nodes settled by then
+     * never change afterwards.
+     *
+     * Like {@link Result} it keeps no reference to the graph: settled nodes are numbered by the step that settled
+     * them, and the tree is stored against those numbers.
+     */
+    private static class ShortestPathTree {
+        private final List<Step> steps = new ArrayList<>();
+        private final Map<Node, Integer> settledAt = new HashMap<>(); // step that settled each settled node
+        private final Edge[] treeEdges; // by step, the tree edge into the node settled there, null for the start
+        private final int[] parents; // by step, the step that settled the start of that tree edge
+
+        ShortestPathTree(Demo demo) {
+            GraphIndex index = GraphIndex.of(demo.getGraph());
+            int[] order = new int[index.size()]; // step that settled each node id
+            DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(index, demo.getStart());
+            for (Step step = Interpreter.search(dijkstraSnapshot); step != null;
+                 step = Interpreter.search(dijkstraSnapshot)) {
+                order[dijkstraSnapshot.getCurrentId()] = steps.size();
+                settledAt.put(step.getCurrent(), steps.size());
+                steps.add(step);
+            }
+            treeEdges = new Edge[steps.size()];
+            parents = new int[steps.size()];
+            Arrays.fill(parents, -1);
+            for (int id = 0; id < index.size(); id++) {
+                int slot = dijkstraSnapshot.getPredecessors()[id];
+                if (dijkstraSnapshot.getSettled()[id] && slot != -1) {
+                    treeEdges[order[id]] = index.edge(slot);
+                    parents[order[id]] = order[index.source(slot)];
+                }
+            }
+        }
+
+        Execution answer(Demo demo) {
+            Integer end = demo.getEnd() == null ? null : settledAt.get(demo.getEnd());
+            if (end == null) {
+                return Execution.of(demo, Collections.unmodifiableList(steps), Collections.emptyList());
+            }
+            // the run stops on settling the end node, without relaxing its edges
+            List<Step> prefix = new ArrayList<>(steps.subList(0, end));
+            prefix.add(Step.of(demo.getEnd(), Collections.emptyList(), Collections.emptyList()));
+            List<Edge> path = new ArrayList<>();
+            for (int step = end; parents[step] != -1; step = parents[step]) {
+                path.add(treeEdges[step]);
+            }
+            Collections.reverse(path);
+            return Execution.of(demo, prefix, path);
+        }
+    }
+
+    private static class Lru<K, V> {
+        private final Map<K, V> map;
+
+        Lru(int capacity) {
+            map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+    }
+}
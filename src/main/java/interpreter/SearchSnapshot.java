@@ -1,19 +1,68 @@
 package interpreter;
 
 import lombok.Data;
+import model.GraphIndex;
 import model.Node;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.function.Consumer;
-import java.util.function.Supplier;
-
+/**
+ * An unweighted search from demo.start() that stops on reaching demo.end(). Nodes are kept by their index id in
+ * arrays sized when the search starts, so a step allocates nothing.
+ */
 @Data
-public abstract class SearchSnapshot<T extends Collection<Node>> implements Snapshot {
-    Set<Node> visited = new HashSet<>();
-    T toTraverse;
-    Supplier<Node> nextNodeProvider;
-    Consumer<Node> nodeAdder;
-    Node current;
+public abstract class SearchSnapshot implements Snapshot {
+    GraphIndex index;
+    int target; // -1 if the end node is not in the graph
+    boolean[] visited;
+    int[] toTraverse;
+    int currentId = -1; // node visited by the last step, -1 before the first and once nothing is left
+    boolean done;
+    TraceSink sink = TraceSink.NONE;
+
+    SearchSnapshot(GraphIndex index, Node end, int capacity) {
+        this.index = index;
+        this.target = index.id(end);
+        this.visited = new boolean[index.size()];
+        this.toTraverse = new int[capacity];
+    }
+
+    /**
+     * Removes the next unvisited node and marks it visited, returns -1 once there is none
+     */
+    abstract int next();
+
+    /**
+     * Queues the node to be visited, unless it already has been
+     */
+    abstract void add(int id);
+
+    public abstract int getQueueSize();
+
+    public Node getCurrent() {
+        return currentId == -1 ? null : index.node(currentId);
+    }
+
+    /**
+     * Visits the next node and queues its neighbors, or finishes once it is the end node or there is nothing left
+     * to visit
+     */
+    public void step() {
+        if (done) {
+            return;
+        }
+        if (currentId != -1) {
+            sink.nodeLeft(currentId);
+        }
+        currentId = next();
+        if (currentId == -1) {
+            done = true;
+        } else if (currentId == target) {
+            done = true;
+            sink.nodeFound(currentId);
+        } else {
+            sink.nodeVisited(currentId);
+            for (int slot = index.begin(currentId); slot < index.end(currentId); slot++) {
+                add(index.target(slot));
+            }
+        }
+    }
 }
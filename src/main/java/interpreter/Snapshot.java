@@ -1,4 +1,20 @@
 package interpreter;
 
+/**
+ * One run of an algorithm, advanced a step at a time. Each step sends what it changed to the sink, in the ids a
+ * {@link TraceSink} takes, so a run can be traced or animated as it goes. The BFS, DFS, Dijkstra's, Prim's and
+ * Kruskal's snapshots allocate everything up front, so stepping them allocates nothing.
+ */
 public interface Snapshot {
+    /**
+     * Takes the next step, does nothing once the run is done
+     */
+    void step();
+
+    boolean isDone();
+
+    /**
+     * Where the following steps send their changes, {@link TraceSink#NONE} until set
+     */
+    void setSink(TraceSink sink);
 }
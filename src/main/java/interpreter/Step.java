@@ -0,0 +1,18 @@
+package interpreter;
+
+import lombok.Value;
+import model.Edge;
+import model.Node;
+
+import java.util.List;
+
+/**
+ * One step of an algorithm run: the node it moved to (null for Kruskal's, which has no current node)
+ * and the edges that joined or left the path/tree during the step.
+ */
+@Value(staticConstructor = "of")
+public class Step {
+    Node current;
+    List<Edge> added;
+    List<Edge> removed;
+}
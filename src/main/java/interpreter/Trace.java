@@ -0,0 +1,209 @@
+package interpreter;
+
+import model.Algorithm;
+import model.CompactGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recorded algorithm run: the graph it ran over and every change it made to the picture of the graph, as
+ * {@link TraceSink} events. Recording never waits, so a run records at full speed and is replayed into a viewer, or
+ * any other sink, afterwards.
+ *
+ * Each event is packed into one int, its kind in the low bits and its node id, edge id or pause in the rest.
+ * Traces are saved in a small binary format: a header, the graph's names, coordinates, declared nodes and edges,
+ * then the packed events.
+ */
+public class Trace implements TraceSink {
+    private static final int MAGIC = 0x47545243; // "GTRC"
+    private static final int VERSION = 1;
+    private static final int KIND_BITS = 3;
+
+    private static final int VISITED = 0;
+    private static final int LEFT = 1;
+    private static final int FOUND = 2;
+    private static final int ADDED = 3;
+    private static final int REMOVED = 4;
+    private static final int CHOSEN = 5;
+    private static final int PAUSE = 6;
+
+    private final Algorithm algorithm;
+    private final CompactGraph graph;
+    private int[] events = new int[64];
+    private int size = 0;
+
+    public Trace(Algorithm algorithm, CompactGraph graph) {
+        this.algorithm = algorithm;
+        this.graph = graph;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Number of events recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void nodeVisited(int node) {
+        append(VISITED, node);
+    }
+
+    @Override
+    public void nodeLeft(int node) {
+        append(LEFT, node);
+    }
+
+    @Override
+    public void nodeFound(int node) {
+        append(FOUND, node);
+    }
+
+    @Override
+    public void edgeAdded(int edge) {
+        append(ADDED, edge);
+    }
+
+    @Override
+    public void edgeRemoved(int edge) {
+        append(REMOVED, edge);
+    }
+
+    @Override
+    public void edgeChosen(int edge) {
+        append(CHOSEN, edge);
+    }
+
+    @Override
+    public void pause(int millis) {
+        append(PAUSE, millis);
+    }
+
+    private void append(int kind, int argument) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size * 2);
+        }
+        events[size++] = argument << KIND_BITS | kind;
+    }
+
+    /**
+     * Sends every event, in order, to the sink
+     */
+    public void replay(TraceSink sink) {
+        for (int i = 0; i < size; i++) {
+            int argument = events[i] >>> KIND_BITS;
+            switch (events[i] & ((1 << KIND_BITS) - 1)) {
+                case VISITED:
+                    sink.nodeVisited(argument);
+                    break;
+                case LEFT:
+                    sink.nodeLeft(argument);
+                    break;
+                case FOUND:
+                    sink.nodeFound(argument);
+                    break;
+                case ADDED:
+                    sink.edgeAdded(argument);
+                    break;
+                case REMOVED:
+                    sink.edgeRemoved(argument);
+                    break;
+                case CHOSEN:
+                    sink.edgeChosen(argument);
+                    break;
+                default:
+                    sink.pause(argument);
+            }
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(algorithm.name());
+        out.writeInt(graph.nameCount());
+        for (int id = 0; id < graph.nameCount(); id++) {
+            out.writeUTF(graph.node(id).getName());
+            out.writeDouble(graph.x(id));
+            out.writeDouble(graph.y(id));
+        }
+        out.writeInt(graph.nodeCount());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            out.writeInt(graph.declared(i));
+        }
+        out.writeInt(graph.edgeCount());
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            out.writeInt(graph.start(edge));
+            out.writeInt(graph.end(edge));
+            out.writeDouble(graph.weight(edge));
+        }
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(events[i]);
+        }
+        out.flush();
+    }
+
+    public static Trace read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    public static Trace read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a trace file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported trace version " + version);
+        }
+        Algorithm algorithm = Algorithm.valueOf(in.readUTF());
+        CompactGraph.Builder builder = CompactGraph.builder();
+        int nameCount = in.readInt();
+        for (int i = 0; i < nameCount; i++) {
+            int id = builder.intern(in.readUTF());
+            builder.place(id, in.readDouble(), in.readDouble());
+        }
+        int nodeCount = in.readInt();
+        for (int i = 0; i < nodeCount; i++) {
+            builder.declare(in.readInt());
+        }
+        int edgeCount = in.readInt();
+        for (int i = 0; i < edgeCount; i++) {
+            builder.addEdge(in.readInt(), in.readInt(), in.readDouble());
+        }
+        Trace trace = new Trace(algorithm, builder.build());
+        trace.size = in.readInt();
+        trace.events = new int[Math.max(trace.size, 1)];
+        for (int i = 0; i < trace.size; i++) {
+            trace.events[i] = in.readInt();
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,75 @@
+package interpreter;
+
+/**
+ * Receives the changes an algorithm run makes to the picture of its graph, in order.
+ * Nodes are referred to by their {@link model.CompactGraph} id and edges by their position in the graph's edges.
+ */
+public interface TraceSink {
+    /**
+     * Ignores every change
+     */
+    TraceSink NONE = new TraceSink() {
+        @Override
+        public void nodeVisited(int node) {
+        }
+
+        @Override
+        public void nodeLeft(int node) {
+        }
+
+        @Override
+        public void nodeFound(int node) {
+        }
+
+        @Override
+        public void edgeAdded(int edge) {
+        }
+
+        @Override
+        public void edgeRemoved(int edge) {
+        }
+
+        @Override
+        public void edgeChosen(int edge) {
+        }
+
+        @Override
+        public void pause(int millis) {
+        }
+    };
+
+    /**
+     * The algorithm moved to the node
+     */
+    void nodeVisited(int node);
+
+    /**
+     * The algorithm is done with the node it was at
+     */
+    void nodeLeft(int node);
+
+    /**
+     * The algorithm reached the end node
+     */
+    void nodeFound(int node);
+
+    /**
+     * The edge joined the path or tree being built
+     */
+    void edgeAdded(int edge);
+
+    /**
+     * The edge left the path or tree being built
+     */
+    void edgeRemoved(int edge);
+
+    /**
+     * The edge is part of the final result, such as the shortest path
+     */
+    void edgeChosen(int edge);
+
+    /**
+     * The end of a step worth looking at; a viewer waits this long at normal speed
+     */
+    void pause(int millis);
+}
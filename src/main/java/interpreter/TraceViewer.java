@@ -0,0 +1,202 @@
+package interpreter;
+
+import metrics.Metrics;
+import metrics.Phase;
+import model.CompactGraph;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows a trace in a GraphStream window, colouring nodes and edges as the events come in.
+ *
+ * Every attribute change is an event the renderer has to process, so changes are batched per step: events only
+ * note the new state of an element, and at the next pause each element that ended up different from what is shown
+ * gets a single update. The colours live in one stylesheet and elements switch between its classes, which is much
+ * cheaper for the renderer than parsing a new inline style each time.
+ */
+class TraceViewer implements TraceSink {
+    // Pauses wait on this timer rather than spinning, so an open demo costs next to no CPU
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "interpreter-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String STYLESHEET = "node { fill-color: grey; size: 30px; } "
+            + "node.visited { fill-color: red; } node.left { fill-color: green; } node.found { fill-color: yellow; } "
+            + "edge.added { fill-color: green; } edge.chosen { fill-color: red; }";
+
+    // ui.class of each state, null for the default style
+    private static final String[] CLASSES = {null, "visited", "left", "found", "added", "chosen"};
+    private static final byte PLAIN = 0;
+    private static final byte VISITED = 1;
+    private static final byte LEFT = 2;
+    private static final byte FOUND = 3;
+    private static final byte ADDED = 4;
+    private static final byte CHOSEN = 5;
+
+    private final Graph graph;
+    private final Batch nodes;
+    private final Batch edges;
+    private final double speed;
+
+    /**
+     * Copies the graph into the GraphStream graph without showing it, whose pauses last 1 / speed times as long as
+     * recorded
+     */
+    TraceViewer(Graph graph, CompactGraph compactGraph, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive");
+        }
+        this.graph = graph;
+        this.speed = speed;
+        graph.addAttribute("ui.stylesheet", STYLESHEET);
+        Node[] gNodes = new Node[compactGraph.nameCount()];
+        for (int i = 0; i < compactGraph.nodeCount(); i++) {
+            int id = compactGraph.declared(i);
+            String name = compactGraph.node(id).getName();
+            Node gNode = graph.addNode(name);
+            gNode.addAttribute("ui.label", name);
+            if (!Double.isNaN(compactGraph.x(id))) {
+                gNode.setAttribute("xyz", compactGraph.x(id), compactGraph.y(id), 0);
+            }
+            gNodes[id] = gNode;
+        }
+        Edge[] gEdges = new Edge[compactGraph.edgeCount()];
+        for (int edge = 0; edge < compactGraph.edgeCount(); edge++) {
+            String start = compactGraph.node(compactGraph.start(edge)).getName();
+            String end = compactGraph.node(compactGraph.end(edge)).getName();
+            Edge gEdge = graph.addEdge(start + end, start, end, true);
+            double weight = compactGraph.weight(edge);
+            if (!Double.isNaN(weight)) {
+                gEdge.setAttribute("weight", weight);
+                gEdge.addAttribute("ui.label", weight);
+            }
+            gEdges[edge] = gEdge;
+        }
+        this.nodes = new Batch(gNodes);
+        this.edges = new Batch(gEdges);
+    }
+
+    /**
+     * Opens a window showing the graph, whose pauses last 1 / speed times as long as recorded
+     */
+    static TraceViewer open(CompactGraph compactGraph, double speed) {
+        System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+        long started = Metrics.start();
+        TraceViewer viewer = new TraceViewer(new SingleGraph("Graph"), compactGraph, speed);
+        Metrics.stop(Phase.VIEW, started);
+        // lay the graph out automatically unless the program placed its nodes
+        viewer.graph.display(!compactGraph.hasCoordinates());
+        return viewer;
+    }
+
+    @Override
+    public void nodeVisited(int node) {
+        nodes.set(node, VISITED);
+    }
+
+    @Override
+    public void nodeLeft(int node) {
+        nodes.set(node, LEFT);
+    }
+
+    @Override
+    public void nodeFound(int node) {
+        nodes.set(node, FOUND);
+    }
+
+    @Override
+    public void edgeAdded(int edge) {
+        edges.set(edge, ADDED);
+    }
+
+    @Override
+    public void edgeRemoved(int edge) {
+        edges.set(edge, PLAIN);
+    }
+
+    @Override
+    public void edgeChosen(int edge) {
+        edges.set(edge, CHOSEN);
+    }
+
+    @Override
+    public void pause(int millis) {
+        flush();
+        await((long) (millis / speed));
+    }
+
+    /**
+     * Shows every change since the last pause
+     */
+    void flush() {
+        nodes.flush();
+        edges.flush();
+    }
+
+    // wait on the timer, leaving the shown graph idle
+    static void await(long millis) {
+        try {
+            TIMER.schedule(() -> { }, millis, TimeUnit.MILLISECONDS).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The state shown and the state wanted for each element of one kind, plus the elements touched since the last
+     * flush
+     */
+    private static class Batch {
+        private final Element[] elements;
+        private final byte[] shown;
+        private final byte[] wanted;
+        private final boolean[] isDirty;
+        private final int[] dirty;
+        private int dirtyCount = 0;
+
+        Batch(Element[] elements) {
+            this.elements = elements;
+            this.shown = new byte[elements.length];
+            this.wanted = new byte[elements.length];
+            this.isDirty = new boolean[elements.length];
+            this.dirty = new int[elements.length];
+        }
+
+        void set(int id, byte state) {
+            if (!isDirty[id]) {
+                isDirty[id] = true;
+                dirty[dirtyCount++] = id;
+            }
+            wanted[id] = state;
+        }
+
+        void flush() {
+            for (int i = 0; i < dirtyCount; i++) {
+                int id = dirty[i];
+                isDirty[id] = false;
+                // an element changed and changed back since the last flush needs nothing
+                if (wanted[id] != shown[id]) {
+                    if (wanted[id] == PLAIN) {
+                        elements[id].removeAttribute("ui.class");
+                    } else {
+                        elements[id].setAttribute("ui.class", CLASSES[wanted[id]]);
+                    }
+                    shown[id] = wanted[id];
+                }
+            }
+            dirtyCount = 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package interpreter;
+
+/**
+ * Thrown for a demo that fails validation, carrying every problem found and not just the first
+ */
+public class ValidationException extends InterpreterException {
+    private final ValidationReport report;
+
+    public ValidationException(ValidationReport report) {
+        super(report.toString());
+        this.report = report;
+    }
+
+    public ValidationReport getReport() {
+        return report;
+    }
+}
@@ -0,0 +1,66 @@
+package interpreter;
+
+import lombok.Value;
+import model.Edge;
+import model.Node;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Everything that keeps a demo from running, as found by {@link Interpreter#validate(model.Demo)}
+ */
+@Value(staticConstructor = "of")
+public class ValidationReport {
+    List<Problem> problems;
+
+    public boolean isValid() {
+        return problems.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return problems.stream().map(Problem::toString).collect(Collectors.joining("\n"));
+    }
+
+    public enum Kind {
+        DUPLICATE_NODE, DUPLICATE_EDGE, MISSING_NODE, MISSING_START, MISSING_WEIGHT, MISSING_REVERSE_EDGE
+    }
+
+    /**
+     * One problem: the node it is about, or the edge it is about, or for a missing node both the node and the first
+     * edge that refers to it
+     */
+    @Value(staticConstructor = "of")
+    public static class Problem {
+        Kind kind;
+        Node node;
+        Edge edge;
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case DUPLICATE_NODE:
+                    return "Duplicate node " + node.getName();
+                case DUPLICATE_EDGE:
+                    return "Duplicate edge " + describe(edge);
+                case MISSING_NODE:
+                    return "Node " + node.getName() + " does not exist, but edge " + describe(edge) + " refers to it";
+                case MISSING_START:
+                    return "Demo must begin with a node that exists in the graph";
+                case MISSING_WEIGHT:
+                    return "Edge " + describe(edge) + " has no weight";
+                default:
+                    return "Edge " + describe(edge) + " has no reverse edge";
+            }
+        }
+
+        /**
+         * The edge as the program would write it
+         */
+        private static String describe(Edge edge) {
+            return "{" + edge.getStart().getName() + " to " + edge.getEnd().getName()
+                    + (edge.getWeight() == null ? "}" : " " + edge.getWeight() + "}");
+        }
+    }
+}
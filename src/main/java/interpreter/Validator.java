@@ -0,0 +1,126 @@
+package interpreter;
+
+import interpreter.ValidationReport.Kind;
+import interpreter.ValidationReport.Problem;
+import model.Algorithm;
+import model.CompactGraph;
+import model.Graph;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks a demo in O(V + E). Names are interned to dense ids once, so whether a node was declared is an array
+ * lookup, and edges go into one open addressing table that answers both the duplicate and the reverse edge checks.
+ */
+class Validator {
+    private static final Set<Algorithm> WEIGHTED = EnumSet.of(Algorithm.DIJKSTRAS, Algorithm.PRIMS,
+            Algorithm.KRUSKALS, Algorithm.BIDIRECTIONAL_DIJKSTRAS, Algorithm.A_STAR, Algorithm.BORUVKAS,
+            Algorithm.DELTA_STEPPING);
+    private static final Set<Algorithm> UNDIRECTED = EnumSet.of(Algorithm.PRIMS, Algorithm.KRUSKALS,
+            Algorithm.BORUVKAS);
+
+    private final CompactGraph graph;
+    private final int[] table; // edge + 1 keyed by (start, end, weight), 0 marks a free bucket
+    private final List<Problem> problems = new ArrayList<>();
+
+    private Validator(CompactGraph graph) {
+        this.graph = graph;
+        this.table = new int[Integer.highestOneBit(Math.max(2 * graph.edgeCount(), 1)) * 2];
+    }
+
+    /**
+     * Validates the graph for the algorithm, and the start node unless the algorithm is null or NOTHING
+     */
+    static ValidationReport validate(Graph graph, Algorithm algorithm, Node start) {
+        Validator validator = new Validator(CompactGraph.of(graph));
+        boolean[] isDeclared = validator.checkNodes();
+        validator.checkEdges(isDeclared);
+        if (WEIGHTED.contains(algorithm)) {
+            validator.checkWeights();
+        }
+        if (UNDIRECTED.contains(algorithm)) {
+            validator.checkReverseEdges();
+        }
+        if (algorithm != null && algorithm != Algorithm.NOTHING) {
+            int id = start == null ? -1 : validator.graph.id(start.getName());
+            if (id == -1 || !isDeclared[id]) {
+                validator.problems.add(Problem.of(Kind.MISSING_START, start, null));
+            }
+        }
+        return ValidationReport.of(validator.problems);
+    }
+
+    private boolean[] checkNodes() {
+        boolean[] isDeclared = new boolean[graph.nameCount()];
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            int id = graph.declared(i);
+            if (isDeclared[id]) {
+                problems.add(Problem.of(Kind.DUPLICATE_NODE, graph.node(id), null));
+            }
+            isDeclared[id] = true;
+        }
+        return isDeclared;
+    }
+
+    private void checkEdges(boolean[] isDeclared) {
+        boolean[] isReported = new boolean[graph.nameCount()];
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            checkEndpoint(graph.start(e), e, isDeclared, isReported);
+            checkEndpoint(graph.end(e), e, isDeclared, isReported);
+            int bucket = find(graph.start(e), graph.end(e), graph.weight(e));
+            if (table[bucket] != 0) {
+                problems.add(Problem.of(Kind.DUPLICATE_EDGE, null, graph.edge(e)));
+            } else {
+                table[bucket] = e + 1;
+            }
+        }
+    }
+
+    /**
+     * Reports a missing node once, along with the first edge that refers to it
+     */
+    private void checkEndpoint(int id, int edge, boolean[] isDeclared, boolean[] isReported) {
+        if (!isDeclared[id] && !isReported[id]) {
+            isReported[id] = true;
+            problems.add(Problem.of(Kind.MISSING_NODE, graph.node(id), graph.edge(edge)));
+        }
+    }
+
+    private void checkWeights() {
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (Double.isNaN(graph.weight(e))) {
+                problems.add(Problem.of(Kind.MISSING_WEIGHT, null, graph.edge(e)));
+            }
+        }
+    }
+
+    private void checkReverseEdges() {
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (table[find(graph.end(e), graph.start(e), graph.weight(e))] == 0) {
+                problems.add(Problem.of(Kind.MISSING_REVERSE_EDGE, null, graph.edge(e)));
+            }
+        }
+    }
+
+    /**
+     * Returns the bucket holding the edge, or the free bucket where it would go
+     */
+    private int find(int start, int end, double weight) {
+        long bits = Double.doubleToLongBits(weight);
+        int h = start * 0x9E3779B1 + end * 0x85EBCA77 + (int) (bits ^ (bits >>> 32)) * 0xC2B2AE3D;
+        int mask = table.length - 1;
+        int bucket = (h ^ (h >>> 16)) & mask;
+        while (table[bucket] != 0) {
+            int e = table[bucket] - 1;
+            if (graph.start(e) == start && graph.end(e) == end && Double.compare(graph.weight(e), weight) == 0) {
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,288 @@
+package metrics;
+
+import model.Algorithm;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Times the phases of running a program and counts the work each algorithm does, keeping running totals and passing
+ * every measurement on to the registered {@link MetricsReporter}s.
+ *
+ * Off by default, or on with -Dmetrics.enabled=true. While off, timing a phase costs a volatile read and algorithm
+ * runs count into {@link Probe#NONE}, so the hot paths stay as they are. The totals can be read here, or over JMX
+ * once {@link #registerMBean()} has been called.
+ */
+public final class Metrics {
+    public static final String OBJECT_NAME = "graph-dsl:type=Metrics";
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static volatile boolean enabled = Boolean.getBoolean("metrics.enabled");
+    private static final List<MetricsReporter> REPORTERS = new CopyOnWriteArrayList<>();
+    private static final Map<Phase, Timer> TIMERS = new EnumMap<>(Phase.class);
+    private static final Map<Algorithm, Totals> TOTALS = new EnumMap<>(Algorithm.class);
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    static {
+        // filled once, so reading the maps needs no locking
+        for (Phase phase : Phase.values()) {
+            TIMERS.put(phase, new Timer());
+        }
+        for (Algorithm algorithm : Algorithm.values()) {
+            TOTALS.put(algorithm, new Totals());
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    public static void addReporter(MetricsReporter reporter) {
+        REPORTERS.add(reporter);
+    }
+
+    public static void removeReporter(MetricsReporter reporter) {
+        REPORTERS.remove(reporter);
+    }
+
+    /**
+     * Starts timing a phase, returns what to pass to {@link #stop(Phase, long)}
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Ends timing a phase started by {@link #start()}, unless metrics were disabled when it started
+     */
+    public static void stop(Phase phase, long started) {
+        if (started == NOT_TIMED) {
+            return;
+        }
+        long nanos = System.nanoTime() - started;
+        TIMERS.get(phase).add(nanos);
+        for (MetricsReporter reporter : REPORTERS) {
+            reporter.phaseTimed(phase, nanos);
+        }
+    }
+
+    /**
+     * Starts counting a run of the algorithm; the run ends with {@link Probe#finish()}
+     */
+    public static Probe probe(Algorithm algorithm) {
+        return enabled ? new Probe(algorithm, System.nanoTime(), allocatedBytes()) : Probe.NONE;
+    }
+
+    static void record(QueryStats stats) {
+        TOTALS.get(stats.getAlgorithm()).add(stats);
+        for (MetricsReporter reporter : REPORTERS) {
+            reporter.queryFinished(stats);
+        }
+    }
+
+    /**
+     * Bytes the current thread has allocated so far, -1 if the JVM doesn't keep count
+     */
+    static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    public static long getCount(Phase phase) {
+        return TIMERS.get(phase).count.sum();
+    }
+
+    public static long getTotalNanos(Phase phase) {
+        return TIMERS.get(phase).totalNanos.sum();
+    }
+
+    public static long getMaxNanos(Phase phase) {
+        return TIMERS.get(phase).maxNanos.get();
+    }
+
+    public static long getQueries(Algorithm algorithm) {
+        return TOTALS.get(algorithm).queries.sum();
+    }
+
+    public static long getNodesExpanded(Algorithm algorithm) {
+        return TOTALS.get(algorithm).nodesExpanded.sum();
+    }
+
+    public static long getEdgesRelaxed(Algorithm algorithm) {
+        return TOTALS.get(algorithm).edgesRelaxed.sum();
+    }
+
+    public static long getMaxQueueSize(Algorithm algorithm) {
+        return TOTALS.get(algorithm).maxQueueSize.get();
+    }
+
+    /**
+     * Total over the runs the JVM could measure
+     */
+    public static long getAllocatedBytes(Algorithm algorithm) {
+        return TOTALS.get(algorithm).allocatedBytes.sum();
+    }
+
+    /**
+     * Zeroes every total. Measurements taken at the same time may be lost.
+     */
+    public static void reset() {
+        TIMERS.values().forEach(Timer::reset);
+        TOTALS.values().forEach(Totals::reset);
+    }
+
+    /**
+     * Registers the totals with the platform MBean server under {@link #OBJECT_NAME}, if they aren't already
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MBean(), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+    }
+
+    private static class Totals {
+        final LongAdder queries = new LongAdder();
+        final LongAdder nodesExpanded = new LongAdder();
+        final LongAdder edgesRelaxed = new LongAdder();
+        final AtomicLong maxQueueSize = new AtomicLong();
+        final LongAdder allocatedBytes = new LongAdder();
+
+        void add(QueryStats stats) {
+            queries.increment();
+            nodesExpanded.add(stats.getNodesExpanded());
+            edgesRelaxed.add(stats.getEdgesRelaxed());
+            maxQueueSize.accumulateAndGet(stats.getMaxQueueSize(), Math::max);
+            if (stats.getAllocatedBytes() != -1) {
+                allocatedBytes.add(stats.getAllocatedBytes());
+            }
+        }
+
+        void reset() {
+            queries.reset();
+            nodesExpanded.reset();
+            edgesRelaxed.reset();
+            maxQueueSize.set(0);
+            allocatedBytes.reset();
+        }
+    }
+
+    private static class MBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getPhaseCounts() {
+            return byPhase(Metrics::getCount);
+        }
+
+        @Override
+        public Map<String, Long> getPhaseTotalNanos() {
+            return byPhase(Metrics::getTotalNanos);
+        }
+
+        @Override
+        public Map<String, Long> getPhaseMaxNanos() {
+            return byPhase(Metrics::getMaxNanos);
+        }
+
+        @Override
+        public Map<String, Long> getQueries() {
+            return byAlgorithm(Metrics::getQueries);
+        }
+
+        @Override
+        public Map<String, Long> getNodesExpanded() {
+            return byAlgorithm(Metrics::getNodesExpanded);
+        }
+
+        @Override
+        public Map<String, Long> getEdgesRelaxed() {
+            return byAlgorithm(Metrics::getEdgesRelaxed);
+        }
+
+        @Override
+        public Map<String, Long> getMaxQueueSizes() {
+            return byAlgorithm(Metrics::getMaxQueueSize);
+        }
+
+        @Override
+        public Map<String, Long> getAllocatedBytes() {
+            return byAlgorithm(Metrics::getAllocatedBytes);
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+
+        private static Map<String, Long> byPhase(Function<Phase, Long> value) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (Phase phase : Phase.values()) {
+                values.put(phase.name(), value.apply(phase));
+            }
+            return values;
+        }
+
+        private static Map<String, Long> byAlgorithm(Function<Algorithm, Long> value) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (Algorithm algorithm : Algorithm.values()) {
+                values.put(algorithm.name(), value.apply(algorithm));
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * The running totals of {@link Metrics} over JMX, keyed by phase or algorithm name
+ */
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getPhaseCounts();
+
+    Map<String, Long> getPhaseTotalNanos();
+
+    Map<String, Long> getPhaseMaxNanos();
+
+    Map<String, Long> getQueries();
+
+    Map<String, Long> getNodesExpanded();
+
+    Map<String, Long> getEdgesRelaxed();
+
+    Map<String, Long> getMaxQueueSizes();
+
+    Map<String, Long> getAllocatedBytes();
+
+    void reset();
+}
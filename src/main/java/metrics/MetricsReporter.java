@@ -0,0 +1,12 @@
+package metrics;
+
+/**
+ * Receives measurements as they are taken, on the thread that took them, while {@link Metrics} is enabled
+ */
+public interface MetricsReporter {
+    default void phaseTimed(Phase phase, long nanos) {
+    }
+
+    default void queryFinished(QueryStats stats) {
+    }
+}
@@ -0,0 +1,12 @@
+package metrics;
+
+/**
+ * The parts of running a program that {@link Metrics} times
+ */
+public enum Phase {
+    PARSE, // program text to demo
+    VALIDATE, // checking the demo can run
+    INDEX, // building the graph index the algorithms run over
+    RUN, // stepping the algorithm to completion
+    VIEW // copying the graph into GraphStream
+}
@@ -0,0 +1,69 @@
+package metrics;
+
+import model.Algorithm;
+import model.GraphIndex;
+import model.Node;
+
+/**
+ * Counts what one algorithm run does, on the thread running it. While metrics are disabled every run gets
+ * {@link #NONE}, whose methods do nothing, so the counting costs one well predicted branch per call.
+ */
+public class Probe {
+    public static final Probe NONE = new Probe(null, 0, 0);
+
+    private final Algorithm algorithm;
+    private final long started;
+    private final long allocatedBefore;
+    private long nodesExpanded;
+    private long edgesRelaxed;
+    private int maxQueueSize;
+
+    Probe(Algorithm algorithm, long started, long allocatedBefore) {
+        this.algorithm = algorithm;
+        this.started = started;
+        this.allocatedBefore = allocatedBefore;
+    }
+
+    /**
+     * The run expanded the nodes, relaxing the edges
+     */
+    public void expanded(int nodes, long edges) {
+        if (algorithm != null) {
+            nodesExpanded += nodes;
+            edgesRelaxed += edges;
+        }
+    }
+
+    /**
+     * The run expanded the node, relaxing all of its outgoing edges
+     */
+    public void expanded(GraphIndex index, Node node) {
+        if (algorithm != null) {
+            int id = index.id(node);
+            nodesExpanded++;
+            edgesRelaxed += index.end(id) - index.begin(id);
+        }
+    }
+
+    /**
+     * The run's queue holds this many entries
+     */
+    public void queued(int size) {
+        if (algorithm != null && size > maxQueueSize) {
+            maxQueueSize = size;
+        }
+    }
+
+    /**
+     * Ends the run, adding it to the totals and sending it to the reporters
+     */
+    public void finish() {
+        if (algorithm == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - started;
+        long allocatedAfter = Metrics.allocatedBytes();
+        long allocated = allocatedBefore == -1 || allocatedAfter == -1 ? -1 : allocatedAfter - allocatedBefore;
+        Metrics.record(QueryStats.of(algorithm, nanos, nodesExpanded, edgesRelaxed, maxQueueSize, allocated));
+    }
+}
@@ -0,0 +1,19 @@
+package metrics;
+
+import lombok.Value;
+import model.Algorithm;
+
+/**
+ * What one algorithm run did. Nodes expanded are the nodes whose outgoing edges it went through and edges relaxed
+ * are those edges; the spanning tree algorithms count every edge they consider instead. The queue is whatever holds
+ * the nodes waiting to be expanded, 0 for algorithms without one.
+ */
+@Value(staticConstructor = "of")
+public class QueryStats {
+    Algorithm algorithm;
+    long runNanos;
+    long nodesExpanded;
+    long edgesRelaxed;
+    int maxQueueSize;
+    long allocatedBytes; // on the thread that ran it, -1 if the JVM can't tell
+}
@@ -1,5 +1,5 @@
 package model;
 
 public enum Algorithm {
-    BFS, DFS, DIJKSTRAS, PRIMS, KRUSKALS, NOTHING
+    BFS, DFS, DIJKSTRAS, PRIMS, KRUSKALS, PARALLEL_BFS, BIDIRECTIONAL_BFS, BIDIRECTIONAL_DIJKSTRAS, A_STAR, BORUVKAS, DELTA_STEPPING, NOTHING
 }
@@ -0,0 +1,129 @@
+package model;
+
+/**
+ * {@link GraphIndex} over a {@link CompactGraph}, with its columns in arrays on the heap
+ */
+class ArrayGraphIndex extends GraphIndex {
+    private final CompactGraph graph;
+    private final int[] offsets; // offsets[id] is the first slot of node id, offsets[size()] == number of edges
+    private final int[] sources; // node id the edge in each slot starts from
+    private final int[] targets; // node id the edge in each slot points to
+    private final double[] weights; // weight of the edge in each slot, NaN if it has none
+    private final int[] edgeIds; // index into the graph's edges of the edge in each slot
+
+    private ArrayGraphIndex(CompactGraph graph, int[] offsets, int[] sources, int[] targets, double[] weights, int[] edgeIds) {
+        this.graph = graph;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeIds = edgeIds;
+    }
+
+    static ArrayGraphIndex build(CompactGraph graph) {
+        int size = graph.nodeCount();
+        for (int i = 0; i < size; i++) {
+            // a valid graph lists each of its names exactly once, in intern order
+            if (graph.declared(i) != i) {
+                throw new IllegalArgumentException("Duplicate node " + graph.node(graph.declared(i)));
+            }
+        }
+        if (graph.nameCount() != size) {
+            throw new IllegalArgumentException("Node " + graph.node(size) + " does not exist");
+        }
+
+        int edgeCount = graph.edgeCount();
+        int[] offsets = new int[size + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            offsets[graph.start(e) + 1]++;
+        }
+        for (int id = 0; id < size; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+
+        // counting sort of the edges by source, stable so each node keeps its edges in graph order
+        int[] next = offsets.clone();
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        double[] weights = new double[edgeCount];
+        int[] edgeIds = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = next[graph.start(e)]++;
+            sources[slot] = graph.start(e);
+            targets[slot] = graph.end(e);
+            weights[slot] = graph.weight(e);
+            edgeIds[slot] = e;
+        }
+        return new ArrayGraphIndex(graph, offsets, sources, targets, weights, edgeIds);
+    }
+
+    @Override
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public int id(Node node) {
+        return node == null ? -1 : graph.id(node.getName());
+    }
+
+    @Override
+    public Node node(int id) {
+        return graph.node(id);
+    }
+
+    @Override
+    public double x(int id) {
+        return graph.x(id);
+    }
+
+    @Override
+    public double y(int id) {
+        return graph.y(id);
+    }
+
+    @Override
+    public int begin(int id) {
+        return offsets[id];
+    }
+
+    @Override
+    public int end(int id) {
+        return offsets[id + 1];
+    }
+
+    @Override
+    public int source(int slot) {
+        return sources[slot];
+    }
+
+    @Override
+    public int target(int slot) {
+        return targets[slot];
+    }
+
+    @Override
+    public double weight(int slot) {
+        return weights[slot];
+    }
+
+    @Override
+    public int edgeId(int slot) {
+        return edgeIds[slot];
+    }
+
+    @Override
+    public Edge edge(int slot) {
+        return graph.edge(edgeIds[slot]);
+    }
+}
@@ -0,0 +1,163 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link GraphIndex} reading its columns and node names out of buffers in the layout of a {@link GraphFile}, so
+ * nothing is copied onto the heap until {@link #getGraph()} is called. The buffers are either sections of a mapped
+ * file or direct buffers filled by {@link OffHeapGraph}.
+ */
+class BufferGraphIndex extends GraphIndex {
+    private final int size;
+    private final int edgeCount;
+    private final LongBuffer nameStarts;
+    private final ByteBuffer names;
+    private final IntBuffer nameTable;
+    private final IntBuffer offsets;
+    private final IntBuffer sources;
+    private final IntBuffer targets;
+    private final IntBuffer edgeIds;
+    private final DoubleBuffer weights;
+    private final DoubleBuffer xs; // null if no node has coordinates
+    private final DoubleBuffer ys;
+    private volatile CompactGraph graph;
+
+    BufferGraphIndex(int size, int edgeCount, LongBuffer nameStarts, ByteBuffer names, IntBuffer nameTable,
+                     IntBuffer offsets, IntBuffer sources, IntBuffer targets, IntBuffer edgeIds,
+                     DoubleBuffer weights, DoubleBuffer xs, DoubleBuffer ys) {
+        this.size = size;
+        this.edgeCount = edgeCount;
+        this.nameStarts = nameStarts;
+        this.names = names;
+        this.nameTable = nameTable;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.edgeIds = edgeIds;
+        this.weights = weights;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /**
+     * Copies the graph onto the heap on the first call, O(V + E)
+     */
+    @Override
+    public CompactGraph getGraph() {
+        CompactGraph result = graph;
+        if (result == null) {
+            CompactGraph.Builder builder = CompactGraph.builder();
+            for (int id = 0; id < size; id++) {
+                builder.declare(builder.intern(name(id))).place(id, x(id), y(id));
+            }
+            int[] slotOfEdge = new int[edgeCount];
+            for (int slot = 0; slot < edgeCount; slot++) {
+                slotOfEdge[edgeId(slot)] = slot;
+            }
+            for (int slot : slotOfEdge) {
+                builder.addEdge(source(slot), target(slot), weight(slot));
+            }
+            result = builder.build();
+            graph = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int id(Node node) {
+        if (node == null) {
+            return -1;
+        }
+        String name = node.getName();
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int mask = nameTable.capacity() - 1;
+        for (int bucket = name.hashCode() & mask; nameTable.get(bucket) != 0; bucket = (bucket + 1) & mask) {
+            int id = nameTable.get(bucket) - 1;
+            if (nameEquals(id, bytes)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int id, byte[] bytes) {
+        int start = (int) nameStarts.get(id);
+        if (nameStarts.get(id + 1) - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (names.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String name(int id) {
+        int start = (int) nameStarts.get(id);
+        byte[] bytes = new byte[(int) (nameStarts.get(id + 1) - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = names.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Node node(int id) {
+        return Node.of(name(id));
+    }
+
+    @Override
+    public double x(int id) {
+        return xs == null ? Double.NaN : xs.get(id);
+    }
+
+    @Override
+    public double y(int id) {
+        return ys == null ? Double.NaN : ys.get(id);
+    }
+
+    @Override
+    public int begin(int id) {
+        return offsets.get(id);
+    }
+
+    @Override
+    public int end(int id) {
+        return offsets.get(id + 1);
+    }
+
+    @Override
+    public int source(int slot) {
+        return sources.get(slot);
+    }
+
+    @Override
+    public int target(int slot) {
+        return targets.get(slot);
+    }
+
+    @Override
+    public double weight(int slot) {
+        return weights.get(slot);
+    }
+
+    @Override
+    public int edgeId(int slot) {
+        return edgeIds.get(slot);
+    }
+}
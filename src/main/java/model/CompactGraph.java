@@ -0,0 +1,295 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column store for a graph. Node names are interned to dense int ids and edges are kept as primitive start, end
+ * and weight columns, so an edge costs 16 bytes instead of an {@link Edge}, a boxed weight and a list slot.
+ *
+ * {@link #toGraph()} wraps the store in the usual {@link Graph} value class. Its node and edge lists are read-only
+ * views that hand out {@link Node}s from the intern table and create {@link Edge}s on demand, and
+ * {@link #of(Graph)} unwraps such a graph again without copying.
+ */
+public class CompactGraph {
+    private final Node[] table; // interned node for each id
+    private final Map<String, Integer> ids;
+    private final int[] declared; // ids in the order of the graph's node list, duplicates included
+    private final int[] starts;
+    private final int[] ends;
+    private final double[] weights; // NaN for an edge without a weight
+    private final double[] xs; // coordinates of each id, NaN where the program gives none
+    private final double[] ys;
+    private volatile Fingerprint fingerprint; // computed on first use
+
+    private CompactGraph(Node[] table, Map<String, Integer> ids, int[] declared,
+                         int[] starts, int[] ends, double[] weights, double[] xs, double[] ys) {
+        this.table = table;
+        this.ids = ids;
+        this.declared = declared;
+        this.starts = starts;
+        this.ends = ends;
+        this.weights = weights;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the store behind a graph made by {@link #toGraph()}, or interns any other graph into a new one
+     */
+    public static CompactGraph of(Graph graph) {
+        if (graph.getNodes() instanceof NodeView && graph.getEdges() instanceof EdgeView) {
+            CompactGraph owner = ((NodeView) graph.getNodes()).owner();
+            if (owner == ((EdgeView) graph.getEdges()).owner()) {
+                return owner;
+            }
+        }
+        Builder builder = builder();
+        for (Node node : graph.getNodes()) {
+            builder.declare(builder.intern(node.getName()));
+        }
+        for (Edge edge : graph.getEdges()) {
+            builder.addEdge(builder.intern(edge.getStart().getName()), builder.intern(edge.getEnd().getName()),
+                    edge.getWeight() == null ? Double.NaN : edge.getWeight());
+        }
+        return builder.build();
+    }
+
+    public Graph toGraph() {
+        return Graph.of(nodes(), edges());
+    }
+
+    public List<Node> nodes() {
+        return new NodeView();
+    }
+
+    public List<Edge> edges() {
+        return new EdgeView();
+    }
+
+    /**
+     * Number of distinct names, including edge endpoints missing from the node list
+     */
+    public int nameCount() {
+        return table.length;
+    }
+
+    /**
+     * Number of entries in the node list
+     */
+    public int nodeCount() {
+        return declared.length;
+    }
+
+    /**
+     * Id of the i-th entry in the node list
+     */
+    public int declared(int i) {
+        return declared[i];
+    }
+
+    public int edgeCount() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the id of the name, or -1 if it does not occur in the graph
+     */
+    public int id(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public Node node(int id) {
+        return table[id];
+    }
+
+    /**
+     * x coordinate of the node, NaN if it has no position
+     */
+    public double x(int id) {
+        return xs[id];
+    }
+
+    /**
+     * y coordinate of the node, NaN if it has no position
+     */
+    public double y(int id) {
+        return ys[id];
+    }
+
+    public boolean hasCoordinates() {
+        for (int id = 0; id < xs.length; id++) {
+            if (!Double.isNaN(xs[id])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hash of everything that can change the outcome of a demo on this graph: names, node list, edges with their
+     * weights, and coordinates. Graphs with equal node lists, edge lists and coordinates get equal fingerprints.
+     * Computed in O(V + E) on the first call.
+     */
+    public Fingerprint fingerprint() {
+        Fingerprint result = fingerprint;
+        if (result == null) {
+            Fingerprint.Hasher hasher = new Fingerprint.Hasher().put(table.length);
+            for (int id = 0; id < table.length; id++) {
+                hasher.put(table[id].getName()).put(xs[id]).put(ys[id]);
+            }
+            hasher.put(declared.length);
+            for (int id : declared) {
+                hasher.put(id);
+            }
+            hasher.put(starts.length);
+            for (int e = 0; e < starts.length; e++) {
+                hasher.put(starts[e]).put(ends[e]).put(weights[e]);
+            }
+            result = hasher.hash();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    public int start(int edge) {
+        return starts[edge];
+    }
+
+    public int end(int edge) {
+        return ends[edge];
+    }
+
+    public double weight(int edge) {
+        return weights[edge];
+    }
+
+    public Edge edge(int edge) {
+        double weight = weights[edge];
+        return Edge.of(table[starts[edge]], table[ends[edge]], Double.isNaN(weight) ? null : weight);
+    }
+
+    private class NodeView extends AbstractList<Node> {
+        @Override
+        public Node get(int index) {
+            return table[declared[index]];
+        }
+
+        @Override
+        public int size() {
+            return declared.length;
+        }
+
+        CompactGraph owner() {
+            return CompactGraph.this;
+        }
+    }
+
+    private class EdgeView extends AbstractList<Edge> {
+        @Override
+        public Edge get(int index) {
+            return edge(index);
+        }
+
+        @Override
+        public int size() {
+            return starts.length;
+        }
+
+        CompactGraph owner() {
+            return CompactGraph.this;
+        }
+    }
+
+    public static class Builder {
+        private Node[] table = new Node[16];
+        private final Map<String, Integer> ids = new HashMap<>();
+        private int nameCount = 0;
+        private int[] declared = new int[16];
+        private int nodeCount = 0;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private double[] weights = new double[16];
+        private int edgeCount = 0;
+        private double[] xs = new double[16];
+        private double[] ys = new double[16];
+
+        private Builder() {
+        }
+
+        /**
+         * Returns the id of the name, giving it the next free id the first time it is seen
+         */
+        public int intern(String name) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (nameCount == table.length) {
+                table = Arrays.copyOf(table, nameCount * 2);
+                xs = Arrays.copyOf(xs, nameCount * 2);
+                ys = Arrays.copyOf(ys, nameCount * 2);
+            }
+            table[nameCount] = Node.of(name);
+            xs[nameCount] = Double.NaN;
+            ys[nameCount] = Double.NaN;
+            ids.put(name, nameCount);
+            return nameCount++;
+        }
+
+        public Node node(int id) {
+            return table[id];
+        }
+
+        /**
+         * Gives the node a position, used by A* to estimate distances and by the viewer to lay the graph out
+         */
+        public Builder place(int id, double x, double y) {
+            xs[id] = x;
+            ys[id] = y;
+            return this;
+        }
+
+        /**
+         * Appends the id to the node list
+         */
+        public Builder declare(int id) {
+            if (nodeCount == declared.length) {
+                declared = Arrays.copyOf(declared, nodeCount * 2);
+            }
+            declared[nodeCount++] = id;
+            return this;
+        }
+
+        /**
+         * Appends an edge, with a NaN weight for an unweighted edge
+         */
+        public Builder addEdge(int start, int end, double weight) {
+            if (edgeCount == starts.length) {
+                starts = Arrays.copyOf(starts, edgeCount * 2);
+                ends = Arrays.copyOf(ends, edgeCount * 2);
+                weights = Arrays.copyOf(weights, edgeCount * 2);
+            }
+            starts[edgeCount] = start;
+            ends[edgeCount] = end;
+            weights[edgeCount] = weight;
+            edgeCount++;
+            return this;
+        }
+
+        public CompactGraph build() {
+            return new CompactGraph(Arrays.copyOf(table, nameCount), new HashMap<>(ids),
+                    Arrays.copyOf(declared, nodeCount), Arrays.copyOf(starts, edgeCount),
+                    Arrays.copyOf(ends, edgeCount), Arrays.copyOf(weights, edgeCount),
+                    Arrays.copyOf(xs, nameCount), Arrays.copyOf(ys, nameCount));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An indexed graph whose edges can be inserted, deleted and reweighted in place.
+ *
+ * Nodes keep the ids of the {@link CompactGraph} the graph was made from, and edges keep theirs: edge {@code e}
+ * starts out as the graph's e-th edge, and inserted edges get the next free ids. A deleted edge's id is never
+ * reused, and its endpoints and last weight stay readable. Each node keeps lists of its live outgoing and incoming
+ * edge ids, so an update costs O(degree). Every update is reported to the registered {@link Listener}s after it
+ * has been applied, so that results computed over the graph can be repaired instead of recomputed.
+ */
+public class DynamicGraph {
+    private final CompactGraph names;
+    private int[] starts;
+    private int[] ends;
+    private double[] weights; // NaN for an edge without a weight
+    private boolean[] alive;
+    private int edgeCount = 0; // ids handed out so far, deleted edges included
+    private final int[][] outgoing; // live edge ids leaving each node, the first outDegree[id] entries are used
+    private final int[] outDegree;
+    private final int[][] incoming;
+    private final int[] inDegree;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * Told about every update, after it has been applied
+     */
+    public interface Listener {
+        void edgeAdded(int edge);
+
+        /**
+         * The edge's endpoints and weight can still be read
+         */
+        void edgeRemoved(int edge);
+
+        void weightChanged(int edge, double oldWeight);
+    }
+
+    private DynamicGraph(CompactGraph names) {
+        this.names = names;
+        int size = names.nameCount();
+        int capacity = Math.max(names.edgeCount(), 16);
+        starts = new int[capacity];
+        ends = new int[capacity];
+        weights = new double[capacity];
+        alive = new boolean[capacity];
+        outgoing = new int[size][];
+        incoming = new int[size][];
+        outDegree = new int[size];
+        inDegree = new int[size];
+        for (int id = 0; id < size; id++) {
+            outgoing[id] = new int[4];
+            incoming[id] = new int[4];
+        }
+    }
+
+    /**
+     * Copies the edges of an index, whose node and edge ids the dynamic graph keeps
+     */
+    public static DynamicGraph of(GraphIndex index) {
+        CompactGraph graph = index.getGraph();
+        DynamicGraph dynamic = new DynamicGraph(graph);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            dynamic.insert(graph.start(e), graph.end(e), graph.weight(e));
+        }
+        return dynamic;
+    }
+
+    public static DynamicGraph of(Graph graph) {
+        return of(GraphIndex.of(graph));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public int size() {
+        return outDegree.length;
+    }
+
+    /**
+     * Number of edge ids handed out so far, including deleted edges
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the id of the node, or -1 if it is not in the graph
+     */
+    public int id(Node node) {
+        return node == null ? -1 : names.id(node.getName());
+    }
+
+    public Node node(int id) {
+        return names.node(id);
+    }
+
+    public int start(int edge) {
+        return starts[edge];
+    }
+
+    public int end(int edge) {
+        return ends[edge];
+    }
+
+    /**
+     * Returns the weight of the edge, NaN if it has none
+     */
+    public double weight(int edge) {
+        return weights[edge];
+    }
+
+    public boolean isAlive(int edge) {
+        return edge < edgeCount && alive[edge];
+    }
+
+    public Edge edge(int edge) {
+        double weight = weights[edge];
+        return Edge.of(node(starts[edge]), node(ends[edge]), Double.isNaN(weight) ? null : weight);
+    }
+
+    public int outDegree(int id) {
+        return outDegree[id];
+    }
+
+    /**
+     * The i-th live edge leaving the node, in no particular order
+     */
+    public int outgoing(int id, int i) {
+        return outgoing[id][i];
+    }
+
+    public int inDegree(int id) {
+        return inDegree[id];
+    }
+
+    /**
+     * The i-th live edge entering the node, in no particular order
+     */
+    public int incoming(int id, int i) {
+        return incoming[id][i];
+    }
+
+    /**
+     * Returns the id of a live edge from start to end with exactly this weight (NaN for none), or -1 if there is none
+     */
+    public int find(Node start, Node end, double weight) {
+        int from = id(start);
+        int to = id(end);
+        if (from == -1 || to == -1) {
+            return -1;
+        }
+        for (int i = 0; i < outDegree[from]; i++) {
+            int edge = outgoing[from][i];
+            if (ends[edge] == to && Double.compare(weights[edge], weight) == 0) {
+                return edge;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts an edge, with a NaN weight for an unweighted edge, and returns its id
+     */
+    public int addEdge(Node start, Node end, double weight) {
+        int edge = insert(require(start), require(end), weight);
+        for (Listener listener : listeners) {
+            listener.edgeAdded(edge);
+        }
+        return edge;
+    }
+
+    public void removeEdge(int edge) {
+        requireAlive(edge);
+        alive[edge] = false;
+        detach(outgoing[starts[edge]], outDegree, starts[edge], edge);
+        detach(incoming[ends[edge]], inDegree, ends[edge], edge);
+        for (Listener listener : listeners) {
+            listener.edgeRemoved(edge);
+        }
+    }
+
+    public void setWeight(int edge, double weight) {
+        requireAlive(edge);
+        double oldWeight = weights[edge];
+        if (Double.compare(oldWeight, weight) == 0) {
+            return;
+        }
+        weights[edge] = weight;
+        for (Listener listener : listeners) {
+            listener.weightChanged(edge, oldWeight);
+        }
+    }
+
+    /**
+     * Copies the live edges, in id order, into an immutable graph with the original node list
+     */
+    public Graph toGraph() {
+        CompactGraph.Builder builder = CompactGraph.builder();
+        for (int id = 0; id < names.nameCount(); id++) {
+            builder.place(builder.intern(names.node(id).getName()), names.x(id), names.y(id));
+        }
+        for (int i = 0; i < names.nodeCount(); i++) {
+            builder.declare(names.declared(i));
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (alive[edge]) {
+                builder.addEdge(starts[edge], ends[edge], weights[edge]);
+            }
+        }
+        return builder.build().toGraph();
+    }
+
+    private int insert(int start, int end, double weight) {
+        if (edgeCount == starts.length) {
+            starts = Arrays.copyOf(starts, edgeCount * 2);
+            ends = Arrays.copyOf(ends, edgeCount * 2);
+            weights = Arrays.copyOf(weights, edgeCount * 2);
+            alive = Arrays.copyOf(alive, edgeCount * 2);
+        }
+        int edge = edgeCount++;
+        starts[edge] = start;
+        ends[edge] = end;
+        weights[edge] = weight;
+        alive[edge] = true;
+        outgoing[start] = attach(outgoing[start], outDegree, start, edge);
+        incoming[end] = attach(incoming[end], inDegree, end, edge);
+        return edge;
+    }
+
+    private static int[] attach(int[] edges, int[] degree, int id, int edge) {
+        if (degree[id] == edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[degree[id]++] = edge;
+        return edges;
+    }
+
+    private static void detach(int[] edges, int[] degree, int id, int edge) {
+        for (int i = 0; i < degree[id]; i++) {
+            if (edges[i] == edge) {
+                edges[i] = edges[--degree[id]];
+                return;
+            }
+        }
+    }
+
+    private int require(Node node) {
+        int id = id(node);
+        if (id == -1) {
+            throw new IllegalArgumentException("Node " + node + " does not exist");
+        }
+        return id;
+    }
+
+    private void requireAlive(int edge) {
+        if (!isAlive(edge)) {
+            throw new IllegalArgumentException("Edge " + edge + " does not exist");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import lombok.Value;
+
+/**
+ * 128-bit hash of a graph's content, see {@link CompactGraph#fingerprint()}. Two independently seeded 64-bit
+ * streams make accidental collisions practically impossible; it is not meant to resist crafted collisions.
+ */
+@Value(staticConstructor = "of")
+public class Fingerprint {
+    long high;
+    long low;
+
+    /**
+     * Fingerprint of a piece of text, such as a whole program
+     */
+    public static Fingerprint of(CharSequence text) {
+        Hasher hasher = new Hasher().put(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            hasher.put(text.charAt(i));
+        }
+        return hasher.hash();
+    }
+
+    static class Hasher {
+        private long high = 0x6A09E667F3BCC908L;
+        private long low = 0xBB67AE8584CAA73BL;
+
+        Hasher put(long value) {
+            high = mix(high ^ value);
+            low = mix(low + value * 0x9E3779B97F4A7C15L);
+            return this;
+        }
+
+        Hasher put(double value) {
+            return put(Double.doubleToLongBits(value));
+        }
+
+        Hasher put(String value) {
+            Fingerprint text = of(value);
+            return put(text.high).put(text.low);
+        }
+
+        Fingerprint hash() {
+            return Fingerprint.of(high, low);
+        }
+
+        // the splitmix64 finalizer
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary form of an indexed graph, laid out so that a memory-mapped file can be used as a {@link GraphIndex}
+ * without parsing or copying anything.
+ *
+ * All numbers are little-endian and every section starts on an 8-byte boundary:
+ *  - header: magic, version, node count, edge count, flags, name table size, name bytes
+ *  - name starts: node count + 1 longs, where each node's UTF-8 name begins in the name bytes
+ *  - name bytes
+ *  - name table: open addressing hash table of id + 1 keyed by the name's {@link String#hashCode()}, 0 when free
+ *  - offsets, sources, targets and edge ids: the int columns of the CSR adjacency, see {@link GraphIndex}
+ *  - weights: one double per slot, NaN for an unweighted edge
+ *  - x and y coordinates: one double per node each, only if the coordinates flag is set
+ *
+ * Each section is mapped on its own, so no single section may reach 2 GB; that allows about 268 million edges.
+ */
+public class GraphFile {
+    static final int MAGIC = 0x48505247; // "GRPH"
+    static final int VERSION = 1;
+    static final int HAS_COORDINATES = 1;
+    private static final int HEADER_SIZE = 40;
+
+    private GraphFile() {
+    }
+
+    /**
+     * Writes the graph, which must be valid, to the file
+     */
+    public static void write(Graph graph, Path path) throws IOException {
+        write(GraphIndex.of(graph), path);
+    }
+
+    public static void write(GraphIndex index, Path path) throws IOException {
+        int size = index.size();
+        int edgeCount = index.edgeCount();
+        byte[][] names = new byte[size][];
+        long nameBytes = 0;
+        boolean hasCoordinates = false;
+        for (int id = 0; id < size; id++) {
+            names[id] = index.node(id).getName().getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[id].length;
+            hasCoordinates |= !Double.isNaN(index.x(id));
+        }
+        Layout layout = new Layout(size, edgeCount, nameBytes, tableSize(size), hasCoordinates);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(edgeCount)
+                    .putInt(hasCoordinates ? HAS_COORDINATES : 0).putInt(layout.tableSize).putLong(nameBytes);
+
+            ByteBuffer starts = map(channel, FileChannel.MapMode.READ_WRITE, layout.nameStarts, 8L * (size + 1));
+            ByteBuffer bytes = map(channel, FileChannel.MapMode.READ_WRITE, layout.names, nameBytes);
+            ByteBuffer table = map(channel, FileChannel.MapMode.READ_WRITE, layout.nameTable, 4L * layout.tableSize);
+            for (int id = 0; id < size; id++) {
+                starts.putLong(bytes.position());
+                bytes.put(names[id]);
+                int bucket = index.node(id).getName().hashCode() & (layout.tableSize - 1);
+                while (table.getInt(4 * bucket) != 0) {
+                    bucket = (bucket + 1) & (layout.tableSize - 1);
+                }
+                table.putInt(4 * bucket, id + 1);
+            }
+            starts.putLong(bytes.position());
+
+            ByteBuffer offsets = map(channel, FileChannel.MapMode.READ_WRITE, layout.offsets, 4L * (size + 1));
+            for (int id = 0; id < size; id++) {
+                offsets.putInt(index.begin(id));
+            }
+            offsets.putInt(edgeCount);
+            ByteBuffer sources = map(channel, FileChannel.MapMode.READ_WRITE, layout.sources, 4L * edgeCount);
+            ByteBuffer targets = map(channel, FileChannel.MapMode.READ_WRITE, layout.targets, 4L * edgeCount);
+            ByteBuffer edgeIds = map(channel, FileChannel.MapMode.READ_WRITE, layout.edgeIds, 4L * edgeCount);
+            ByteBuffer weights = map(channel, FileChannel.MapMode.READ_WRITE, layout.weights, 8L * edgeCount);
+            for (int slot = 0; slot < edgeCount; slot++) {
+                sources.putInt(index.source(slot));
+                targets.putInt(index.target(slot));
+                edgeIds.putInt(index.edgeId(slot));
+                weights.putDouble(index.weight(slot));
+            }
+            if (hasCoordinates) {
+                ByteBuffer xs = map(channel, FileChannel.MapMode.READ_WRITE, layout.xs, 8L * size);
+                ByteBuffer ys = map(channel, FileChannel.MapMode.READ_WRITE, layout.ys, 8L * size);
+                for (int id = 0; id < size; id++) {
+                    xs.putDouble(index.x(id));
+                    ys.putDouble(index.y(id));
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the file and returns an index that reads it in place. Only the header is read up front; the pages of the
+     * file are loaded as the algorithms touch them.
+     */
+    public static GraphIndex map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a graph file");
+            }
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported graph file version " + version);
+            }
+            int size = header.getInt();
+            int edgeCount = header.getInt();
+            boolean hasCoordinates = (header.getInt() & HAS_COORDINATES) != 0;
+            int tableSize = header.getInt();
+            long nameBytes = header.getLong();
+            Layout layout = new Layout(size, edgeCount, nameBytes, tableSize, hasCoordinates);
+            if (channel.size() < layout.end) {
+                throw new IOException("Graph file is truncated");
+            }
+
+            FileChannel.MapMode mode = FileChannel.MapMode.READ_ONLY;
+            return new BufferGraphIndex(size, edgeCount,
+                    map(channel, mode, layout.nameStarts, 8L * (size + 1)).asLongBuffer(),
+                    map(channel, mode, layout.names, nameBytes),
+                    map(channel, mode, layout.nameTable, 4L * tableSize).asIntBuffer(),
+                    map(channel, mode, layout.offsets, 4L * (size + 1)).asIntBuffer(),
+                    map(channel, mode, layout.sources, 4L * edgeCount).asIntBuffer(),
+                    map(channel, mode, layout.targets, 4L * edgeCount).asIntBuffer(),
+                    map(channel, mode, layout.edgeIds, 4L * edgeCount).asIntBuffer(),
+                    map(channel, mode, layout.weights, 8L * edgeCount).asDoubleBuffer(),
+                    hasCoordinates ? map(channel, mode, layout.xs, 8L * size).asDoubleBuffer() : null,
+                    hasCoordinates ? map(channel, mode, layout.ys, 8L * size).asDoubleBuffer() : null);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long length)
+            throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Graph is too large, a section would take " + length + " bytes");
+        }
+        MappedByteBuffer buffer = channel.map(mode, position, length);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Smallest power of two at least twice the number of nodes, so the name table stays at most half full
+     */
+    static int tableSize(int size) {
+        return Integer.highestOneBit(Math.max(2 * size, 1)) * 2;
+    }
+
+    /**
+     * Where each section starts
+     */
+    static class Layout {
+        final int tableSize;
+        final long nameStarts;
+        final long names;
+        final long nameTable;
+        final long offsets;
+        final long sources;
+        final long targets;
+        final long edgeIds;
+        final long weights;
+        final long xs;
+        final long ys;
+        final long end;
+
+        Layout(int size, int edgeCount, long nameBytes, int tableSize, boolean hasCoordinates) {
+            this.tableSize = tableSize;
+            nameStarts = HEADER_SIZE;
+            names = align(nameStarts + 8L * (size + 1));
+            nameTable = align(names + nameBytes);
+            offsets = align(nameTable + 4L * tableSize);
+            sources = align(offsets + 4L * (size + 1));
+            targets = align(sources + 4L * edgeCount);
+            edgeIds = align(targets + 4L * edgeCount);
+            weights = align(edgeIds + 4L * edgeCount);
+            xs = weights + 8L * edgeCount;
+            ys = xs + 8L * size;
+            end = hasCoordinates ? ys + 8L * size : xs;
+        }
+
+        private static long align(long position) {
+            return (position + 7) & ~7L;
+        }
+    }
+}
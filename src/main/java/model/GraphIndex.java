@@ -0,0 +1,170 @@
+package model;
+
+/**
+ * Adjacency index over a {@link Graph} in compressed sparse row form.
+ *
+ * Nodes get dense ids in the order they appear in {@link Graph#getNodes()}. The outgoing edges of node {@code id}
+ * occupy the slots {@code begin(id)} (inclusive) to {@code end(id)} (exclusive), in the order they appear in
+ * {@link Graph#getEdges()}, so expanding a node costs O(degree) instead of a scan over every edge. Targets and
+ * weights are primitive columns in slot order; {@link Edge} objects are only made when asked for.
+ *
+ * {@link #of(Graph)} keeps the columns in arrays on the heap, {@link OffHeapGraph} in direct buffers outside it and
+ * {@link GraphFile#map(java.nio.file.Path)} reads them straight out of a memory-mapped file. The algorithms only go
+ * through the methods here, so they run on any of them.
+ */
+public abstract class GraphIndex {
+    // open addressing table of slot + 1 keyed by (source, target, weight), 0 marks a free bucket; built on first find
+    private volatile int[] lookup;
+    // incoming edges in the same compressed form, holding slots of the outgoing arrays; built on first use
+    private volatile Incoming incoming;
+
+    GraphIndex() {
+    }
+
+    /**
+     * Builds the index in O(V + E). Every edge endpoint must be one of the graph's nodes.
+     */
+    public static GraphIndex of(Graph graph) {
+        return of(CompactGraph.of(graph));
+    }
+
+    public static GraphIndex of(CompactGraph graph) {
+        return ArrayGraphIndex.build(graph);
+    }
+
+    /**
+     * The indexed graph on the heap. Indexes that aren't backed by one copy it out on the first call.
+     */
+    public abstract CompactGraph getGraph();
+
+    public abstract int size();
+
+    public abstract int edgeCount();
+
+    /**
+     * Returns the dense id of the node, or -1 if it is not in the graph
+     */
+    public abstract int id(Node node);
+
+    public abstract Node node(int id);
+
+    /**
+     * Returns the x coordinate the program gave the node, NaN if it has none
+     */
+    public abstract double x(int id);
+
+    public abstract double y(int id);
+
+    public abstract int begin(int id);
+
+    public abstract int end(int id);
+
+    public abstract int source(int slot);
+
+    public abstract int target(int slot);
+
+    /**
+     * Returns the weight of the edge in the slot, NaN if it has none
+     */
+    public abstract double weight(int slot);
+
+    /**
+     * Returns the position in {@link Graph#getEdges()} of the edge in the slot
+     */
+    public abstract int edgeId(int slot);
+
+    public Edge edge(int slot) {
+        double weight = weight(slot);
+        return Edge.of(node(source(slot)), node(target(slot)), Double.isNaN(weight) ? null : weight);
+    }
+
+    /**
+     * First position in the incoming edges of node id, see {@link #incomingSlot(int)}
+     */
+    public int incomingBegin(int id) {
+        return incoming().offsets[id];
+    }
+
+    public int incomingEnd(int id) {
+        return incoming().offsets[id + 1];
+    }
+
+    /**
+     * Returns the slot of the edge at a position between {@link #incomingBegin(int)} and {@link #incomingEnd(int)}.
+     * Each node's incoming edges are in slot order. The first call builds the incoming index in O(V + E).
+     */
+    public int incomingSlot(int position) {
+        return incoming().slots[position];
+    }
+
+    private Incoming incoming() {
+        Incoming result = incoming;
+        if (result == null) {
+            int[] offsets = new int[size() + 1];
+            for (int slot = 0; slot < edgeCount(); slot++) {
+                offsets[target(slot) + 1]++;
+            }
+            for (int id = 0; id < size(); id++) {
+                offsets[id + 1] += offsets[id];
+            }
+            int[] next = offsets.clone();
+            int[] slots = new int[edgeCount()];
+            for (int slot = 0; slot < edgeCount(); slot++) {
+                slots[next[target(slot)]++] = slot;
+            }
+            result = new Incoming(offsets, slots);
+            incoming = result;
+        }
+        return result;
+    }
+
+    private static class Incoming {
+        final int[] offsets;
+        final int[] slots;
+
+        Incoming(int[] offsets, int[] slots) {
+            this.offsets = offsets;
+            this.slots = slots;
+        }
+    }
+
+    /**
+     * Returns the slot of an edge from source to target with exactly this weight (NaN for none), or -1 if there is
+     * no such edge. Expected O(1) after an O(E) table build on the first call.
+     */
+    public int find(int source, int target, double weight) {
+        int[] table = lookup();
+        int mask = table.length - 1;
+        for (int bucket = hash(source, target, weight) & mask; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = table[bucket] - 1;
+            if (source(slot) == source && target(slot) == target && Double.compare(weight(slot), weight) == 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int[] lookup() {
+        int[] table = lookup;
+        if (table == null) {
+            // racing threads build identical tables, so publishing through the volatile is enough
+            table = new int[Integer.highestOneBit(Math.max(2 * edgeCount(), 1)) * 2];
+            int mask = table.length - 1;
+            for (int slot = 0; slot < edgeCount(); slot++) {
+                int bucket = hash(source(slot), target(slot), weight(slot)) & mask;
+                while (table[bucket] != 0) {
+                    bucket = (bucket + 1) & mask;
+                }
+                table[bucket] = slot + 1;
+            }
+            lookup = table;
+        }
+        return table;
+    }
+
+    private static int hash(int source, int target, double weight) {
+        long bits = Double.doubleToLongBits(weight);
+        int h = source * 0x9E3779B1 + target * 0x85EBCA77 + (int) (bits ^ (bits >>> 32)) * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+}
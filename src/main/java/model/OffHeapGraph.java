@@ -0,0 +1,252 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds {@link GraphIndex}es whose node names, adjacency offsets, sources, targets, edge ids and weights all live in
+ * direct buffers outside the Java heap, in the layout of a {@link GraphFile}. The heap only holds the buffer objects,
+ * so a graph much larger than the heap can be traversed without the collector ever scanning it.
+ *
+ * Like a graph file, no single column may reach 2 GB; that allows about 268 million edges.
+ */
+public class OffHeapGraph {
+    private OffHeapGraph() {
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Copies a valid graph off the heap in O(V + E)
+     */
+    public static GraphIndex of(Graph graph) {
+        return of(CompactGraph.of(graph));
+    }
+
+    public static GraphIndex of(CompactGraph graph) {
+        Builder builder = builder();
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            int id = builder.intern(graph.node(graph.declared(i)).getName());
+            if (id != i) {
+                throw new IllegalArgumentException("Duplicate node " + graph.node(graph.declared(i)));
+            }
+            builder.place(id, graph.x(graph.declared(i)), graph.y(graph.declared(i)));
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            builder.addEdge(graph.start(e), graph.end(e), graph.weight(e));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects nodes and edges straight into direct buffers, so a graph streamed in from elsewhere never has to exist
+     * on the heap. {@link #build()} hands the buffers over to the index, after which the builder can't be used.
+     */
+    public static class Builder {
+        private ByteBuffer names = allocate(256);
+        private ByteBuffer nameStarts = allocate(8 * 17); // one long per node plus the end of the last name
+        private ByteBuffer hashes = allocate(4 * 16); // each name's hash code, to rebuild the table as it grows
+        private ByteBuffer nameTable = allocate(4 * 32); // id + 1 keyed by the name's hash code, 0 when free
+        private ByteBuffer xs = allocate(8 * 16);
+        private ByteBuffer ys = allocate(8 * 16);
+        private ByteBuffer starts = allocate(4 * 16);
+        private ByteBuffer ends = allocate(4 * 16);
+        private ByteBuffer weights = allocate(8 * 16);
+        private int size = 0;
+        private int edgeCount = 0;
+        private int nameBytes = 0;
+        private boolean hasCoordinates = false;
+
+        private Builder() {
+        }
+
+        /**
+         * Returns the id of the name, giving it the next free id the first time it is seen
+         */
+        public int intern(String name) {
+            checkOpen();
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            int mask = nameTable.capacity() / 4 - 1;
+            int bucket = name.hashCode() & mask;
+            for (; nameTable.getInt(4 * bucket) != 0; bucket = (bucket + 1) & mask) {
+                int id = nameTable.getInt(4 * bucket) - 1;
+                if (nameEquals(id, bytes)) {
+                    return id;
+                }
+            }
+
+            int id = size++;
+            names = ensure(names, (long) nameBytes + bytes.length);
+            nameStarts = ensure(nameStarts, 8L * (size + 1));
+            hashes = ensure(hashes, 4L * size);
+            xs = ensure(xs, 8L * size);
+            ys = ensure(ys, 8L * size);
+            ByteBuffer tail = names.duplicate();
+            tail.position(nameBytes);
+            tail.put(bytes);
+            nameBytes += bytes.length;
+            nameStarts.putLong(8 * (id + 1), nameBytes);
+            hashes.putInt(4 * id, name.hashCode());
+            xs.putDouble(8 * id, Double.NaN);
+            ys.putDouble(8 * id, Double.NaN);
+            nameTable.putInt(4 * bucket, id + 1);
+            if (GraphFile.tableSize(size) > nameTable.capacity() / 4) {
+                rehash(GraphFile.tableSize(size));
+            }
+            return id;
+        }
+
+        private boolean nameEquals(int id, byte[] bytes) {
+            int start = (int) nameStarts.getLong(8 * id);
+            if (nameStarts.getLong(8 * (id + 1)) - start != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (names.get(start + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash(int tableSize) {
+            nameTable = allocate(4L * tableSize);
+            for (int id = 0; id < size; id++) {
+                int bucket = hashes.getInt(4 * id) & (tableSize - 1);
+                while (nameTable.getInt(4 * bucket) != 0) {
+                    bucket = (bucket + 1) & (tableSize - 1);
+                }
+                nameTable.putInt(4 * bucket, id + 1);
+            }
+        }
+
+        /**
+         * Gives the node a position, used by A* to estimate distances and by the viewer to lay the graph out
+         */
+        public Builder place(int id, double x, double y) {
+            checkOpen();
+            checkNode(id);
+            xs.putDouble(8 * id, x);
+            ys.putDouble(8 * id, y);
+            hasCoordinates |= !Double.isNaN(x);
+            return this;
+        }
+
+        /**
+         * Appends an edge between two interned ids, with a NaN weight for an unweighted edge
+         */
+        public Builder addEdge(int start, int end, double weight) {
+            checkOpen();
+            checkNode(start);
+            checkNode(end);
+            starts = ensure(starts, 4L * (edgeCount + 1));
+            ends = ensure(ends, 4L * (edgeCount + 1));
+            weights = ensure(weights, 8L * (edgeCount + 1));
+            starts.putInt(4 * edgeCount, start);
+            ends.putInt(4 * edgeCount, end);
+            weights.putDouble(8 * edgeCount, weight);
+            edgeCount++;
+            return this;
+        }
+
+        /**
+         * Sorts the edges into compressed sparse row form in O(V + E), keeping each node's edges in the order they
+         * were added
+         */
+        public GraphIndex build() {
+            checkOpen();
+            ByteBuffer offsets = allocate(4L * (size + 1));
+            for (int e = 0; e < edgeCount; e++) {
+                int start = starts.getInt(4 * e);
+                offsets.putInt(4 * (start + 1), offsets.getInt(4 * (start + 1)) + 1);
+            }
+            for (int id = 0; id < size; id++) {
+                offsets.putInt(4 * (id + 1), offsets.getInt(4 * (id + 1)) + offsets.getInt(4 * id));
+            }
+
+            // counting sort of the edges by source, stable so each node keeps its edges in the order they came in
+            ByteBuffer next = allocate(4L * Math.max(size, 1));
+            for (int id = 0; id < size; id++) {
+                next.putInt(4 * id, offsets.getInt(4 * id));
+            }
+            ByteBuffer sources = allocate(4L * edgeCount);
+            ByteBuffer targets = allocate(4L * edgeCount);
+            ByteBuffer edgeIds = allocate(4L * edgeCount);
+            ByteBuffer sorted = allocate(8L * edgeCount);
+            for (int e = 0; e < edgeCount; e++) {
+                int start = starts.getInt(4 * e);
+                int slot = next.getInt(4 * start);
+                next.putInt(4 * start, slot + 1);
+                sources.putInt(4 * slot, start);
+                targets.putInt(4 * slot, ends.getInt(4 * e));
+                edgeIds.putInt(4 * slot, e);
+                sorted.putDouble(8 * slot, weights.getDouble(8 * e));
+            }
+
+            GraphIndex index = new BufferGraphIndex(size, edgeCount,
+                    slice(nameStarts, 8 * (size + 1)).asLongBuffer(),
+                    slice(names, nameBytes),
+                    nameTable.asIntBuffer(),
+                    offsets.asIntBuffer(),
+                    sources.asIntBuffer(),
+                    targets.asIntBuffer(),
+                    edgeIds.asIntBuffer(),
+                    sorted.asDoubleBuffer(),
+                    hasCoordinates ? slice(xs, 8 * size).asDoubleBuffer() : null,
+                    hasCoordinates ? slice(ys, 8 * size).asDoubleBuffer() : null);
+            // the index owns the name buffers now, and the edge columns are garbage
+            names = null;
+            nameStarts = null;
+            hashes = null;
+            nameTable = null;
+            xs = null;
+            ys = null;
+            starts = null;
+            ends = null;
+            weights = null;
+            return index;
+        }
+
+        private void checkOpen() {
+            if (names == null) {
+                throw new IllegalStateException("Graph already built");
+            }
+        }
+
+        private void checkNode(int id) {
+            if (id < 0 || id >= size) {
+                throw new IllegalArgumentException("Node " + id + " does not exist");
+            }
+        }
+    }
+
+    private static ByteBuffer allocate(long capacity) {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Graph is too large, a column would take " + capacity + " bytes");
+        }
+        return ByteBuffer.allocateDirect((int) capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the buffer, or a copy twice as large if it holds fewer than the needed bytes
+     */
+    private static ByteBuffer ensure(ByteBuffer buffer, long needed) {
+        if (needed <= buffer.capacity()) {
+            return buffer;
+        }
+        ByteBuffer grown = allocate(Math.max(Math.min(2L * buffer.capacity(), Integer.MAX_VALUE - 8), needed));
+        ByteBuffer old = buffer.duplicate();
+        old.clear();
+        grown.put(old).clear();
+        return grown;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.clear().limit(length);
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+}
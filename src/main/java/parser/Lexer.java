@@ -0,0 +1,160 @@
+package parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Single pass tokenizer for the graph DSL.
+ *
+ * A program is made of braces and atoms, where an atom is any run of characters other than whitespace and braces
+ * (keywords, node names, algorithm names, edge costs and the {@code <->} arrow). The lexer holds only the current
+ * token, which the parser consumes with {@link #advance()}, and reads its input a buffer at a time, so the program
+ * text is never held in memory as a whole. Read failures surface as {@link UncheckedIOException}.
+ */
+class Lexer {
+    private static final int BUFFER_SIZE = 8192;
+
+    enum Type {
+        OPEN, CLOSE, ATOM, END
+    }
+
+    private final Reader input;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0; // buffer[position..limit) is still unread, limit is -1 at end of input
+    private final StringBuilder atom = new StringBuilder();
+    private long offset = 0; // characters consumed so far
+    private int line = 1;
+    private int column = 1;
+
+    // the current token
+    private Type type;
+    private String text;
+    private long tokenOffset;
+    private int tokenLine;
+    private int tokenColumn;
+
+    Lexer(Reader input) {
+        this.input = input;
+        advance();
+    }
+
+    Type type() {
+        return type;
+    }
+
+    /**
+     * Text of the current atom, null for any other token
+     */
+    String text() {
+        return text;
+    }
+
+    int line() {
+        return tokenLine;
+    }
+
+    int column() {
+        return tokenColumn;
+    }
+
+    /**
+     * Position of the current token's first character in the input
+     */
+    long offset() {
+        return tokenOffset;
+    }
+
+    /**
+     * Describes the current token for error messages
+     */
+    String describe() {
+        switch (type) {
+            case OPEN:
+                return "'{'";
+            case CLOSE:
+                return "'}'";
+            case ATOM:
+                return "'" + text + "'";
+            default:
+                return "end of input";
+        }
+    }
+
+    void advance() {
+        while (available() && Character.isWhitespace(buffer[position])) {
+            consume(buffer[position]);
+        }
+        tokenOffset = offset;
+        tokenLine = line;
+        tokenColumn = column;
+        text = null;
+        if (!available()) {
+            type = Type.END;
+            return;
+        }
+        char c = buffer[position];
+        if (c == '{' || c == '}') {
+            type = c == '{' ? Type.OPEN : Type.CLOSE;
+            consume(c);
+            return;
+        }
+        atom.setLength(0);
+        while (available() && isAtomChar(buffer[position])) {
+            atom.append(buffer[position]);
+            consume(buffer[position]);
+        }
+        type = Type.ATOM;
+        text = atom.toString();
+    }
+
+    /**
+     * Passes over the input up to the given position without tokenizing it, keeping lines and columns right, then
+     * reads the token there
+     */
+    void skipTo(long target) {
+        while (offset < target && available()) {
+            consume(buffer[position]);
+        }
+        advance();
+    }
+
+    /**
+     * Returns whether an unread character is left, refilling the buffer if needed
+     */
+    private boolean available() {
+        if (position < limit) {
+            return true;
+        }
+        if (limit == -1) {
+            return false;
+        }
+        try {
+            int read;
+            do {
+                read = input.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            position = 0;
+            limit = read;
+            return read > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void consume(char c) {
+        position++;
+        offset++;
+        if (c == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+    }
+
+    private static boolean isAtomChar(char c) {
+        return c != '{' && c != '}' && !Character.isWhitespace(c);
+    }
+}
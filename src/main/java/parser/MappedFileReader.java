@@ -0,0 +1,51 @@
+package parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a local file through memory-mapped windows instead of copying it through the heap.
+ *
+ * Programs in the DSL are plain ASCII, so each byte is read as one character; any other byte can only ever fail to
+ * parse. Files of any size are mapped one window at a time.
+ */
+class MappedFileReader extends Reader {
+    private static final long WINDOW_SIZE = 1 << 28;
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart = 0;
+    private MappedByteBuffer window;
+
+    MappedFileReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        if (window == null || !window.hasRemaining()) {
+            if (window != null) {
+                windowStart += window.capacity();
+            }
+            if (windowStart >= size) {
+                return -1;
+            }
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+        }
+        int count = Math.min(length, window.remaining());
+        for (int i = 0; i < count; i++) {
+            chars[offset + i] = (char) (window.get() & 0xFF);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
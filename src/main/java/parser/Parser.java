@@ -1,15 +1,27 @@
 package parser;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import metrics.Metrics;
+import metrics.Phase;
 import model.*;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Parser {
 
@@ -17,138 +29,156 @@ public class Parser {
      * EBNF:
      *
      * <Demo>        ::= {do <Algorithm> on <Graph> from <Node> to <Node>}
+     *                  | {do NOTHING on <Graph>}
      * <Graph>       ::= {graph {<Nodes>} {<Edges>}}
      * <Node>        ::= <string>
      * <Edge>        ::= {<Node> to <Node>}
      *                  | {<Node> to <Node> <number>}
+     *                  | {<Node> <-> <Node>}
+     *                  | {<Node> <-> <Node> <number>}
      * <Nodes>       ::=
      *                  | <Node> <Nodes>
+     *                  | {<Node> <number> <number>} <Nodes>
      * <Edges>       ::=
      *                  | <Edge> <Edges>
      * <Algorithm>   ::= DFS
      *                  | BFS
-     *                  | Dijkstra's
+     *                  | DIJKSTRAS
+     *                  | PRIMS
+     *                  | KRUSKALS
+     *                  | PARALLEL_BFS
+     *                  | BIDIRECTIONAL_BFS
+     *                  | BIDIRECTIONAL_DIJKSTRAS
+     *                  | A_STAR
+     *                  | BORUVKAS
+     *                  | DELTA_STEPPING
+     *
+     * Each rule is parsed by the method of the same name in one left to right pass over the tokens. Nodes and edges
+     * go straight into the columns of a {@link CompactGraph}, and the parsed {@link Graph} is a view over it.
+     *
+     * In parallel mode the edge list, which is most of a large program, is split after the edges that end near every
+     * chunk's worth of characters. The chunks are parsed into graphs of their own on a fork-join pool and merged in
+     * order, interning each chunk's names in the order it first saw them, so the ids come out as in one pass. If any
+     * chunk fails, the sequential parser parses the edge list again to report the error at the same token.
      */
 
-    private static final List<String> RESERVED = ImmutableList.of("to", "do", "on", "from", "graph", "DFS", "BFS", "DIJKSTRAS","NOTHING");
+    private static final Set<String> RESERVED = ImmutableSet.of("to", "do", "on", "from", "graph", "DFS", "BFS", "DIJKSTRAS","NOTHING",
+            "PARALLEL_BFS", "BIDIRECTIONAL_BFS", "BIDIRECTIONAL_DIJKSTRAS", "A_STAR", "BORUVKAS", "DELTA_STEPPING");
+
+    private static final String BIDIRECTIONAL_ARROW = "<->";
+
+    private static final int CHUNK_SIZE = 1 << 16; // characters of edge list per parallel chunk
 
-    private static final Pattern LIST_PATTERN = Pattern.compile("\\{(.*)\\}");
-    private static final Pattern NODE_PATTERN = Pattern.compile("([A-Za-z0-9]+)");
-    private static final Pattern EDGE_PATTERN = Pattern.compile("\\{(.*) to (\\w+)( [\\d\\.]+)?\\}");
-    private static final Pattern BIDIRECTIONAL_EDGE_PATTERN = Pattern.compile("\\{(.*) <-> (\\w+)( [\\d\\.]+)?\\}");
+    private final Lexer lexer;
+    private final CompactGraph.Builder builder = CompactGraph.builder();
+    // set in parallel mode only
+    private final String text;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
 
-    // [\w\s]* is to match node list, hacky way to get around regex issues
-    private static final Pattern GRAPH_PATTERN = Pattern.compile("\\{graph (\\{[\\w\\s]*\\}) (.*)\\}");
-    private static final Pattern DEMO_PATTERN = Pattern.compile("\\{do (\\w+) on (.*) from (\\w+) to (\\w+)\\}");
-    // added: pattern for NOTHING example: {do NOTHING on {graph {A B C} {{A to B} {B to C} {C to A}}}}
-    private static final Pattern DEMO_PATTERN_NOTHING = Pattern.compile("\\{do NOTHING on (.*)\\}");
+    private Parser(Lexer lexer) {
+        this(lexer, null, null, 0);
+    }
+
+    private Parser(Lexer lexer, String text, ForkJoinPool pool, int chunkSize) {
+        this.lexer = lexer;
+        this.text = text;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
 
     public static Demo parse(String concrete) {
+        return parseAll(concrete, Parser::demo);
+    }
+
+    /**
+     * Parses a program, parsing its edge list in parallel on the common pool
+     */
+    public static Demo parseParallel(String concrete) {
+        return parseParallel(concrete, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses a program, parsing its edge list in parallel on the pool. Returns the same demo and throws the same
+     * errors as {@link #parse(String)}.
+     */
+    public static Demo parseParallel(String concrete, ForkJoinPool pool) {
+        return parseParallel(concrete, pool, CHUNK_SIZE);
+    }
+
+    @VisibleForTesting
+    static Demo parseParallel(String concrete, ForkJoinPool pool, int chunkSize) {
+        long started = Metrics.start();
+        Parser parser = new Parser(new Lexer(new StringReader(concrete)), concrete, pool, chunkSize);
+        Demo demo = parser.demo();
+        parser.expect(Lexer.Type.END, "end of input");
+        Metrics.stop(Phase.PARSE, started);
+        return demo;
+    }
+
+    /**
+     * Parses a program as it is read, without holding its text in memory
+     */
+    public static Demo parse(Reader concrete) throws IOException {
         try {
-            return parseDemo(concrete);
-        } catch (Exception e) {
-            throw new ParsingException("Unable to parse " + concrete);
+            return parseAll(concrete, Parser::demo);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
-    static List<Node> parseNode(String concrete) {
-        Matcher matcher = NODE_PATTERN.matcher(concrete);
-        if (matcher.matches() && !RESERVED.contains(matcher.group(1))) {
-            return Collections.singletonList(Node.of(matcher.group(1)));
-        }
-        throw new ParsingException(concrete + " did not match the expected pattern for a node");
-    }
-
-    private static <T> List<T> parseList(String concrete, Function<String, List<T>> function) {
-        Matcher matcher = LIST_PATTERN.matcher(concrete);
-        if (!matcher.matches()) {
-            throw new ParsingException(concrete + " did not match the expected pattern for a list");
-        }
-        List<T> lst = new ArrayList<>();
-        String[] concreteElements = matcher.group(1).split(" ");
-        for (int i = 0; i < concreteElements.length; i++) {
-            String concreteElement = concreteElements[i];
-            // This is hacky as fuck but works for our DSL :shrug:
-            if (concreteElement.contains("{")) {
-                do {
-                    concreteElement = concreteElement + " " + concreteElements[++i];
-                } while (!concreteElements[i].contains("}"));
-            }
-            if (concreteElement.length() != 0) {
-                lst.addAll(function.apply(concreteElement));
-                }
+    /**
+     * Parses the program in a file, memory-mapping it if it is on the local file system
+     */
+    public static Demo parse(Path path) throws IOException {
+        try (Reader reader = path.getFileSystem() == FileSystems.getDefault()
+                ? new MappedFileReader(path)
+                : Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            return parse(reader);
+        }
+    }
 
-            }
-        return lst;
+    private static <T> T parseAll(String concrete, Function<Parser, T> rule) {
+        return parseAll(new StringReader(concrete), rule);
+    }
+
+    private static <T> T parseAll(Reader concrete, Function<Parser, T> rule) {
+        long started = Metrics.start();
+        Parser parser = new Parser(new Lexer(concrete));
+        T result = rule.apply(parser);
+        parser.expect(Lexer.Type.END, "end of input");
+        Metrics.stop(Phase.PARSE, started);
+        return result;
+    }
+
+    static List<Node> parseNode(String concrete) {
+        return Collections.singletonList(parseAll(concrete, Parser::node));
     }
 
     static List<Node> parseNodes(String concrete) {
-        return parseList(concrete, Parser::parseNode);
+        return parseAll(concrete, parser -> {
+            parser.nodes();
+            return parser.builder.build().nodes();
+        });
     }
 
     static List<Edge> parseEdge(String concrete) {
-        Matcher matcher = EDGE_PATTERN.matcher(concrete);
-        Matcher matcherAnother = BIDIRECTIONAL_EDGE_PATTERN.matcher(concrete);
-        if (matcher.matches()) {
-            Node start = parseNode(matcher.group(1)).get(0);
-            Node end = parseNode(matcher.group(2)).get(0);
-            Double cost = getCost(matcher.group(3));
-            return Collections.singletonList(Edge.of(start,end,cost));
-        } else if (matcherAnother.matches()){
-            Node start = parseNode(matcherAnother.group(1)).get(0);
-            Node end = parseNode(matcherAnother.group(2)).get(0);
-            Double cost = getCost(matcherAnother.group(3));
-            List<Edge> returnArray = new ArrayList<>();
-            returnArray.add(Edge.of(start, end, cost));
-            returnArray.add(Edge.of(end,start, cost));
-            return returnArray;
-        } else {
-            throw new ParsingException(concrete + " did not match the expected pattern for an edge");
-        }
-
-    }
-
-    private static Double getCost(String str) {
-        if (str == null || str.trim().isEmpty()) {
-            return null;
-        }
-        try {
-            return Double.parseDouble(str.trim());
-        } catch (NumberFormatException e) {
-            throw new ParsingException("Malformed edge cost!");
-        }
+        return parseAll(concrete, parser -> {
+            parser.edge();
+            return parser.builder.build().edges();
+        });
     }
 
     static List<Edge> parseEdges(String concrete) {
-        return parseList(concrete, Parser::parseEdge);
+        return parseAll(concrete, parser -> {
+            parser.edges();
+            return parser.builder.build().edges();
+        });
     }
 
     @VisibleForTesting
     public static Graph parseGraph(String concrete) {
-        Matcher matcher = GRAPH_PATTERN.matcher(concrete);
-        if (!matcher.matches()) {
-            throw new ParsingException(concrete + " did not match the expected pattern for a graph");
-        }
-        List<Node> nodes = parseNodes(matcher.group(1));
-        List<Edge> edges = parseEdges(matcher.group(2));
-        return Graph.of(nodes, edges);
-    }
-
-    private static Demo parseDemo(String concrete) {
-        Matcher matcher = DEMO_PATTERN.matcher(concrete);
-        Matcher matcherNothing = DEMO_PATTERN_NOTHING.matcher(concrete);
-        if (matcherNothing.matches()) {
-            Graph graph = parseGraph(matcherNothing.group(1));
-            return Demo.of(Algorithm.NOTHING, graph, null, null);
-        } else if (matcher.matches()) {
-            Algorithm algorithm = parseAlgorithm(matcher.group(1));
-            Graph graph = parseGraph(matcher.group(2));
-            Node start = parseNode(matcher.group(3)).get(0);
-            Node end = parseNode(matcher.group(4)).get(0);
-            return Demo.of(algorithm, graph, start, end);
-        } else {
-            throw new ParsingException(concrete + " did not match the expected pattern for a demo");
-        }
+        return parseAll(concrete, Parser::graph);
     }
 
     static Algorithm parseAlgorithm(String concrete) {
@@ -159,4 +189,235 @@ public class Parser {
         }
     }
 
-}
\ No newline at end of file
+    private Demo demo() {
+        expect(Lexer.Type.OPEN, "'{'");
+        keyword("do");
+        Algorithm algorithm = algorithm();
+        keyword("on");
+        Graph graph = graph();
+        if (algorithm == Algorithm.NOTHING) {
+            expect(Lexer.Type.CLOSE, "'}'");
+            return Demo.of(algorithm, graph, null, null);
+        }
+        keyword("from");
+        Node start = node();
+        keyword("to");
+        Node end = node();
+        expect(Lexer.Type.CLOSE, "'}'");
+        return Demo.of(algorithm, graph, start, end);
+    }
+
+    private Graph graph() {
+        expect(Lexer.Type.OPEN, "'{'");
+        keyword("graph");
+        nodes();
+        edges();
+        expect(Lexer.Type.CLOSE, "'}'");
+        return builder.build().toGraph();
+    }
+
+    private void nodes() {
+        expect(Lexer.Type.OPEN, "'{'");
+        while (lexer.type() != Lexer.Type.CLOSE) {
+            if (lexer.type() == Lexer.Type.OPEN) {
+                placedNode();
+            } else {
+                builder.declare(name());
+            }
+        }
+        lexer.advance();
+    }
+
+    /**
+     * Parses a node followed by its x and y coordinates
+     */
+    private void placedNode() {
+        expect(Lexer.Type.OPEN, "'{'");
+        int id = name();
+        double x = number("a coordinate", true);
+        double y = number("a coordinate", true);
+        expect(Lexer.Type.CLOSE, "'}'");
+        builder.place(id, x, y).declare(id);
+    }
+
+    private void edges() {
+        if (text != null && parallelEdges()) {
+            return;
+        }
+        expect(Lexer.Type.OPEN, "'{'");
+        while (lexer.type() == Lexer.Type.OPEN) {
+            edge();
+        }
+        expect(Lexer.Type.CLOSE, "an edge or '}'");
+    }
+
+    /**
+     * Parses the edge list in chunks on the pool and returns true, or returns false without consuming anything if
+     * the list is too short to split or is malformed, leaving it to the sequential parser
+     */
+    private boolean parallelEdges() {
+        if (lexer.type() != Lexer.Type.OPEN) {
+            return false;
+        }
+        int open = (int) lexer.offset();
+        // find the list's closing brace, splitting after the edges that end past every chunkSize characters
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(open + 1);
+        int next = open + 1 + chunkSize;
+        int close = -1;
+        int depth = 1;
+        for (int i = open + 1; i < text.length() && close == -1; i++) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                close = i;
+            } else if (c == '}' && depth == 1 && i + 1 >= next) {
+                bounds.add(i + 1);
+                next = i + 1 + chunkSize;
+            }
+        }
+        if (close == -1 || bounds.size() == 1) {
+            return false;
+        }
+        bounds.add(close);
+
+        List<CompactGraph> chunks;
+        try {
+            chunks = pool.submit(() -> IntStream.range(0, bounds.size() - 1).parallel()
+                    .mapToObj(i -> parseChunk(text.substring(bounds.get(i), bounds.get(i + 1))))
+                    .collect(Collectors.toList())).join();
+        } catch (ParsingException e) {
+            return false;
+        }
+        for (CompactGraph chunk : chunks) {
+            int[] ids = new int[chunk.nameCount()];
+            for (int id = 0; id < ids.length; id++) {
+                ids[id] = builder.intern(chunk.node(id).getName());
+            }
+            for (int edge = 0; edge < chunk.edgeCount(); edge++) {
+                builder.addEdge(ids[chunk.start(edge)], ids[chunk.end(edge)], chunk.weight(edge));
+            }
+        }
+        lexer.skipTo(close);
+        expect(Lexer.Type.CLOSE, "an edge or '}'");
+        return true;
+    }
+
+    /**
+     * Parses a run of edges with names interned in order of first appearance in the run
+     */
+    private static CompactGraph parseChunk(String edges) {
+        Parser parser = new Parser(new Lexer(new StringReader(edges)));
+        while (parser.lexer.type() == Lexer.Type.OPEN) {
+            parser.edge();
+        }
+        parser.expect(Lexer.Type.END, "an edge");
+        return parser.builder.build();
+    }
+
+    /**
+     * Parses one edge, adding the reverse edge too if it is bidirectional
+     */
+    private void edge() {
+        expect(Lexer.Type.OPEN, "an edge");
+        int start = name();
+        String arrow = lexer.text();
+        if (!"to".equals(arrow) && !BIDIRECTIONAL_ARROW.equals(arrow)) {
+            throw unexpected("'to' or '" + BIDIRECTIONAL_ARROW + "'");
+        }
+        lexer.advance();
+        int end = name();
+        double cost = lexer.type() == Lexer.Type.ATOM ? number("an edge cost or '}'", false) : Double.NaN;
+        expect(Lexer.Type.CLOSE, "an edge cost or '}'");
+        builder.addEdge(start, end, cost);
+        if (BIDIRECTIONAL_ARROW.equals(arrow)) {
+            builder.addEdge(end, start, cost);
+        }
+    }
+
+    private Node node() {
+        return builder.node(name());
+    }
+
+    /**
+     * Parses a node name and returns its interned id
+     */
+    private int name() {
+        String name = lexer.text();
+        if (name == null || !isNodeName(name) || RESERVED.contains(name)) {
+            throw unexpected("a node");
+        }
+        lexer.advance();
+        return builder.intern(name);
+    }
+
+    /**
+     * Parses digits and dots, after a minus sign if signed
+     */
+    private double number(String expected, boolean signed) {
+        String concrete = lexer.text();
+        if (concrete == null) {
+            throw unexpected(expected);
+        }
+        for (int i = signed && concrete.startsWith("-") ? 1 : 0; i < concrete.length(); i++) {
+            char c = concrete.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '.') {
+                throw unexpected(expected);
+            }
+        }
+        try {
+            double number = Double.parseDouble(concrete);
+            lexer.advance();
+            return number;
+        } catch (NumberFormatException e) {
+            throw error("Malformed number " + lexer.describe());
+        }
+    }
+
+    private Algorithm algorithm() {
+        String concrete = lexer.text();
+        if (concrete == null) {
+            throw unexpected("an algorithm");
+        }
+        try {
+            Algorithm algorithm = parseAlgorithm(concrete);
+            lexer.advance();
+            return algorithm;
+        } catch (ParsingException e) {
+            throw error(e.getMessage());
+        }
+    }
+
+    private void keyword(String keyword) {
+        if (!keyword.equals(lexer.text())) {
+            throw unexpected("'" + keyword + "'");
+        }
+        lexer.advance();
+    }
+
+    private void expect(Lexer.Type type, String expected) {
+        if (lexer.type() != type) {
+            throw unexpected(expected);
+        }
+        lexer.advance();
+    }
+
+    private ParsingException unexpected(String expected) {
+        return error("Expected " + expected + " but found " + lexer.describe());
+    }
+
+    private ParsingException error(String message) {
+        return new ParsingException(message, lexer.line(), lexer.column());
+    }
+
+    private static boolean isNodeName(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
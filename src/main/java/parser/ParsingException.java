@@ -1,7 +1,32 @@
 package parser;
 
 public class ParsingException extends RuntimeException {
+    private final int line;
+    private final int column;
+
     public ParsingException(String message) {
         super(message);
+        this.line = -1;
+        this.column = -1;
+    }
+
+    public ParsingException(String message, int line, int column) {
+        super(message + " at line " + line + ", column " + column);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Line of the offending token, starting at 1, or -1 if the error has no position
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Column of the offending token, starting at 1, or -1 if the error has no position
+     */
+    public int getColumn() {
+        return column;
     }
 }
@@ -1,12 +1,41 @@
 package interpreter;
 
+import metrics.Metrics;
+import metrics.MetricsReporter;
+import metrics.Phase;
+import metrics.QueryStats;
 import model.Algorithm;
+import model.CompactGraph;
 import model.Demo;
+import model.DynamicGraph;
+import model.Edge;
 import model.Graph;
+import model.GraphFile;
+import model.GraphIndex;
 import model.Node;
+import model.OffHeapGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.SinkAdapter;
 import org.junit.Test;
 import parser.Parser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.management.ObjectName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 public class InterpreterTest {
 
     private static final Graph GRAPH = Parser.parseGraph("{graph {A B C D E F} {{A to B} {A to D} {A to C} {C to E} {D to F}}}");
@@ -15,8 +44,11 @@ public class InterpreterTest {
     private static final Graph SIMPLE_GRAPH = Parser.parseGraph("{graph {A B C} {{A to B} {B to C} {C to A}}}");
     private static final Graph GRAPH3 = Parser.parseGraph("{graph {A B} {{A to B} {A to A} {B to A}}}");
     private static final Graph GRAPH4 = Parser.parseGraph("{graph {A B C D E F} {{A to B} {A to C} {D to E} {D to F}}}");
+    private static final Graph WEIGHTED_GRAPH = Parser.parseGraph("{graph {A B C D E F} {{A to B 3} {A to D 1.5} {A to C 4} {C to E 1} {D to E 2} {D to F 3}}}");
+    private static final Graph UNDIRECTED_GRAPH = Parser.parseGraph("{graph {A B C D E F} {{A to B 3} {B to A 3} {A to D 1.5} {D to A 1.5} {C to E 1} {E to C 1} {D to E 2} {E to D 2} {D to F 3} {F to D 3}}}");
     private static final Graph PRETTY_GRAPH = Parser.parseGraph("{graph {A B C D E F G H I J K L M N O P} " +
             "{{A to B} {A to C} {A to D} {A to E} {A to F} {B to G} {B to H} {C to I} {C to J} {D to K} {D to L} {E to M} {E to N} {F to O} {F to P}}}");
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
 
     @Test
     public void testBfs() {
@@ -153,4 +185,714 @@ public class InterpreterTest {
     public void testBidirectionalDFS2() {
         Interpreter.run("{do DIJKSTRAS on {graph {A B C} {{A <-> B 5} {B <-> C 2} {C to A 1}}} from A to C}");
     }
+
+    @Test
+    public void testExecuteBfs() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.BFS, GRAPH, Node.of("A"), Node.of("F")));
+        assertThat(visitOrder(execution)).isEqualTo("ABDCF");
+        assertThat(execution.getEdges()).isEmpty();
+    }
+
+    @Test
+    public void testExecuteDfs() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.DFS, GRAPH, Node.of("A"), Node.of("F")));
+        assertThat(visitOrder(execution)).isEqualTo("ACEDF");
+    }
+
+    @Test
+    public void testExecuteUnreachableEnd() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.BFS, GRAPH4, Node.of("A"), Node.of("E")));
+        assertThat(visitOrder(execution)).isEqualTo("ABC");
+    }
+
+    @Test
+    public void testExecuteDijkstra() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.DIJKSTRAS, WEIGHTED_GRAPH, Node.of("A"), Node.of("E")));
+        assertThat(visitOrder(execution)).isEqualTo("ADBE");
+        assertThat(execution.getEdges()).containsExactly(edge("A", "D", 1.5), edge("D", "E", 2));
+    }
+
+    @Test
+    public void testExecuteDijkstraReplacesEdge() {
+        Execution execution = Interpreter.execute("{do DIJKSTRAS on {graph {A B C} {{A to B 1} {A to C 5} {B to C 1}}} from A to C}");
+        Step second = execution.getSteps().get(1);
+        assertThat(second.getAdded()).containsExactly(edge("B", "C", 1));
+        assertThat(second.getRemoved()).containsExactly(edge("A", "C", 5));
+        assertThat(execution.getEdges()).containsExactly(edge("A", "B", 1), edge("B", "C", 1));
+    }
+
+    @Test
+    public void testExecutePrim() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.PRIMS, UNDIRECTED_GRAPH, Node.of("A"), Node.of("E")));
+        assertThat(visitOrder(execution)).isEqualTo("DECBF");
+        assertThat(execution.getEdges()).containsExactly(
+                edge("A", "D", 1.5), edge("D", "A", 1.5), edge("D", "E", 2), edge("E", "D", 2), edge("E", "C", 1),
+                edge("C", "E", 1), edge("A", "B", 3), edge("B", "A", 3), edge("D", "F", 3), edge("F", "D", 3));
+    }
+
+    @Test
+    public void testExecuteKruskal() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.KRUSKALS, UNDIRECTED_GRAPH, Node.of("A"), Node.of("E")));
+        assertThat(execution.getSteps()).hasSize(5);
+        assertThat(execution.getEdges()).containsExactly(
+                edge("C", "E", 1), edge("E", "C", 1), edge("A", "D", 1.5), edge("D", "A", 1.5), edge("D", "E", 2),
+                edge("E", "D", 2), edge("A", "B", 3), edge("B", "A", 3), edge("D", "F", 3), edge("F", "D", 3));
+    }
+
+    @Test
+    public void testExecuteBoruvka() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.BORUVKAS, UNDIRECTED_GRAPH, Node.of("A"), Node.of("E")));
+        // first round: A, B and F join D, C joins E; second round joins the two trees
+        assertThat(execution.getSteps()).hasSize(2);
+        assertThat(execution.getSteps().get(0).getAdded()).containsExactly(
+                edge("A", "D", 1.5), edge("D", "A", 1.5), edge("A", "B", 3), edge("B", "A", 3),
+                edge("C", "E", 1), edge("E", "C", 1), edge("D", "F", 3), edge("F", "D", 3));
+        assertThat(execution.getEdges()).containsExactlyInAnyOrderElementsOf(
+                Interpreter.execute(Demo.of(Algorithm.KRUSKALS, UNDIRECTED_GRAPH, Node.of("A"), Node.of("E"))).getEdges());
+
+        // many equal weights, so every tie has to be broken the way Kruskal's breaks it
+        int size = 2000;
+        Random random = new Random(7);
+        CompactGraph.Builder builder = numberedGraph(size);
+        for (int i = 0; i < 3 * size; i++) {
+            int a = random.nextInt(size);
+            int b = i < size ? i : random.nextInt(size);
+            double weight = random.nextInt(5);
+            builder.addEdge(a, b, weight).addEdge(b, a, weight);
+        }
+        GraphIndex index = GraphIndex.of(builder.build());
+        KruskalSnapshot kruskalSnapshot = new KruskalSnapshot(index);
+        while (!kruskalSnapshot.isDone()) {
+            kruskalSnapshot.step();
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        BoruvkaSnapshot boruvkaSnapshot = new BoruvkaSnapshot(index, pool);
+        while (!boruvkaSnapshot.isDone()) {
+            boruvkaSnapshot.step();
+        }
+        pool.shutdown();
+        assertThat(boruvkaSnapshot.getChosenEdges()).containsExactlyInAnyOrderElementsOf(kruskalSnapshot.getChosenEdges());
+        assertThat(boruvkaSnapshot.getNumTrees()).isEqualTo(kruskalSnapshot.getNumTrees());
+        assertThat(boruvkaSnapshot.getRound()).isLessThanOrEqualTo(11);
+    }
+
+    @Test
+    public void testExecuteDeltaStepping() {
+        Execution dijkstra = Interpreter.execute(Demo.of(Algorithm.DIJKSTRAS, WEIGHTED_GRAPH, Node.of("A"), Node.of("F")));
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.DELTA_STEPPING, WEIGHTED_GRAPH, Node.of("A"), Node.of("F")));
+        assertThat(visitOrder(execution)).isEqualTo(visitOrder(dijkstra));
+        assertThat(execution.getEdges()).isEqualTo(dijkstra.getEdges());
+
+        // integer weights tie all the time, so every tie has to be broken the way Dijkstra's breaks it
+        int size = 3000;
+        Random random = new Random(11);
+        CompactGraph.Builder builder = numberedGraph(size);
+        for (int i = 0; i < 5 * size; i++) {
+            builder.addEdge(random.nextInt(size), random.nextInt(size), 1 + random.nextInt(6));
+        }
+        GraphIndex index = GraphIndex.of(builder.build());
+        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(index, Node.of("N0"));
+        while (Interpreter.search(dijkstraSnapshot) != null) {
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (double delta : new double[]{0.5, 3, 1000}) {
+            DeltaSteppingSnapshot deltaSteppingSnapshot = new DeltaSteppingSnapshot(index, Node.of("N0"), delta, pool);
+            while (!deltaSteppingSnapshot.isDone()) {
+                deltaSteppingSnapshot.step();
+            }
+            for (int id = 0; id < size; id++) {
+                assertThat(deltaSteppingSnapshot.getDist(index.node(id))).isEqualTo(dijkstraSnapshot.getDist(index.node(id)));
+            }
+            assertThat(deltaSteppingSnapshot.getPredecessors()).isEqualTo(dijkstraSnapshot.getPredecessors());
+        }
+        pool.shutdown();
+
+        Graph zero = Parser.parseGraph("{graph {A B C D} {{A to B 1} {B to D 0} {D to C 0} {C to D 0} {A to C 2}}}");
+        DeltaSteppingSnapshot deltaSteppingSnapshot = new DeltaSteppingSnapshot(GraphIndex.of(zero), Node.of("A"));
+        while (!deltaSteppingSnapshot.isDone()) {
+            deltaSteppingSnapshot.step();
+        }
+        assertThat(deltaSteppingSnapshot.getDist(Node.of("C"))).isEqualTo(1.0);
+        assertThat(deltaSteppingSnapshot.pathTo(Node.of("C"))).containsExactly(
+                edge("D", "C", 0), edge("B", "D", 0), edge("A", "B", 1));
+    }
+
+    @Test(expected = InterpreterException.class)
+    public void testExecuteKruskalDirected() {
+        Interpreter.execute(Demo.of(Algorithm.KRUSKALS, WEIGHTED_GRAPH, Node.of("A"), Node.of("E")));
+    }
+
+    @Test
+    public void testExecuteDenseSearch() {
+        // every node points at every node, so the queue and stack see each node hundreds of times
+        int size = 300;
+        CompactGraph.Builder builder = numberedGraph(size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                builder.addEdge(i, j, Double.NaN);
+            }
+        }
+        Graph graph = builder.build().toGraph();
+        assertThat(Interpreter.execute(Demo.of(Algorithm.BFS, graph, Node.of("N0"), null)).getSteps()).hasSize(size);
+        assertThat(Interpreter.execute(Demo.of(Algorithm.DFS, graph, Node.of("N0"), null)).getSteps()).hasSize(size);
+    }
+
+    @Test
+    public void testExecuteParallelBfs() {
+        assertThat(visitOrder(Interpreter.execute(Demo.of(Algorithm.PARALLEL_BFS, GRAPH, Node.of("A"), Node.of("F")))))
+                .isEqualTo("ABDCF");
+        assertThat(visitOrder(Interpreter.execute(Demo.of(Algorithm.PARALLEL_BFS, GRAPH2, Node.of("A"), Node.of("E")))))
+                .isEqualTo(visitOrder(Interpreter.execute(Demo.of(Algorithm.BFS, GRAPH2, Node.of("A"), Node.of("E")))));
+    }
+
+    @Test
+    public void testParallelBfsLevels() {
+        // a 200 x 200 grid with edges right and down, so levels span several fork-join tasks
+        int side = 200;
+        CompactGraph.Builder builder = numberedGraph(side * side);
+        for (int i = 0; i < side * side; i++) {
+            if (i % side + 1 < side) {
+                builder.addEdge(i, i + 1, Double.NaN);
+            }
+            if (i + side < side * side) {
+                builder.addEdge(i, i + side, Double.NaN);
+            }
+        }
+        GraphIndex index = GraphIndex.of(builder.build());
+        ParallelBfsSnapshot bfsSnapshot = new ParallelBfsSnapshot(index, index.node(0));
+        while (!bfsSnapshot.isDone()) {
+            bfsSnapshot.step();
+        }
+        for (int i = 0; i < side * side; i++) {
+            Node node = index.node(i);
+            assertThat(bfsSnapshot.getLevel(node)).isEqualTo(i / side + i % side);
+            if (i > 0) {
+                int parent = index.id(bfsSnapshot.getParent(node));
+                assertThat(parent == i - 1 || parent == i - side).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void testExecuteBidirectionalBfs() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.BIDIRECTIONAL_BFS, GRAPH2, Node.of("A"), Node.of("E")));
+        assertThat(visitOrder(execution)).isEqualTo("AED");
+        assertThat(execution.getEdges()).containsExactly(
+                Edge.of(Node.of("A"), Node.of("C"), null), Edge.of(Node.of("C"), Node.of("D"), null),
+                Edge.of(Node.of("D"), Node.of("E"), null));
+    }
+
+    @Test
+    public void testExecuteBidirectionalBfsUnreachable() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.BIDIRECTIONAL_BFS, GRAPH4, Node.of("A"), Node.of("E")));
+        assertThat(execution.getEdges()).isEmpty();
+    }
+
+    @Test
+    public void testExecuteBidirectionalDijkstra() {
+        Execution execution = Interpreter.execute(Demo.of(Algorithm.BIDIRECTIONAL_DIJKSTRAS, WEIGHTED_GRAPH, Node.of("A"), Node.of("E")));
+        assertThat(execution.getEdges()).containsExactly(edge("A", "D", 1.5), edge("D", "E", 2));
+    }
+
+    @Test
+    public void testExecuteAStar() {
+        String program = "{do A_STAR on {graph {{A 0 0} {B 1 0} {C 2 0} {D -1 0} {E -2 0}} " +
+                "{{A <-> B 1} {B <-> C 1} {A <-> D 1} {D <-> E 1}}} from A to C}";
+        Execution execution = Interpreter.execute(program);
+        assertThat(visitOrder(execution)).isEqualTo("ABC");
+        assertThat(execution.getEdges()).containsExactly(edge("A", "B", 1), edge("B", "C", 1));
+        // without coordinates to aim with it settles D as well, like Dijkstra's
+        assertThat(visitOrder(Interpreter.execute(program.replace("A_STAR", "DIJKSTRAS")))).isEqualTo("ABDC");
+    }
+
+    @Test
+    public void testSessionExecuteAll() {
+        GraphSession session = GraphSession.of(GRAPH2);
+        List<Query> queries = new ArrayList<>();
+        for (Algorithm algorithm : new Algorithm[]{Algorithm.BFS, Algorithm.DFS, Algorithm.PARALLEL_BFS}) {
+            for (Node node : GRAPH2.getNodes()) {
+                queries.add(Query.of(algorithm, node, Node.of("E")));
+            }
+        }
+        List<Execution> executions = session.executeAll(queries);
+        assertThat(executions).hasSameSizeAs(queries);
+        for (int i = 0; i < queries.size(); i++) {
+            Query query = queries.get(i);
+            assertThat(executions.get(i)).isEqualTo(Interpreter.execute(
+                    Demo.of(query.getAlgorithm(), GRAPH2, query.getStart(), query.getEnd())));
+        }
+    }
+
+    @Test
+    public void testSessionDijkstra() {
+        Execution execution = GraphSession.of(WEIGHTED_GRAPH).execute(Query.of(Algorithm.DIJKSTRAS, Node.of("A"), Node.of("E")));
+        assertThat(execution.getEdges()).containsExactly(edge("A", "D", 1.5), edge("D", "E", 2));
+    }
+
+    @Test(expected = InterpreterException.class)
+    public void testSessionValidatesGraph() {
+        GraphSession.of(Parser.parseGraph("{graph {A B A} {{A to B}}}"));
+    }
+
+    @Test(expected = InterpreterException.class)
+    public void testSessionValidatesStart() {
+        GraphSession.of(SIMPLE_GRAPH).execute(Query.of(Algorithm.BFS, Node.of("E"), Node.of("A")));
+    }
+
+    @Test
+    public void testResultCache() {
+        ResultCache cache = new ResultCache(16);
+        String program = "{do BFS on {graph {A B C} {{A to B} {B to C} {C to A}}} from A to C}";
+        Execution first = cache.execute(program);
+        assertThat(cache.execute(program)).isEqualTo(first);
+        // an equal graph built separately has the same fingerprint
+        assertThat(cache.execute(Parser.parse(program))).isEqualTo(first);
+        assertThat(first).isEqualTo(Interpreter.execute(program));
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testResultCacheReusesShortestPathTree() {
+        ResultCache cache = new ResultCache(16);
+        for (Node end : WEIGHTED_GRAPH.getNodes()) {
+            Demo demo = Demo.of(Algorithm.DIJKSTRAS, WEIGHTED_GRAPH, Node.of("A"), end);
+            assertThat(cache.execute(demo)).isEqualTo(Interpreter.execute(demo));
+        }
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(WEIGHTED_GRAPH.getNodes().size() - 1);
+    }
+
+    @Test
+    public void testResultCacheValidatesStart() {
+        ResultCache cache = new ResultCache(16);
+        cache.execute(Demo.of(Algorithm.KRUSKALS, UNDIRECTED_GRAPH, Node.of("A"), null));
+        // Kruskal's ignores the start, so this is a hit, but a missing start is still an error
+        assertThatThrownBy(() -> cache.execute(Demo.of(Algorithm.KRUSKALS, UNDIRECTED_GRAPH, Node.of("Z"), null)))
+                .isInstanceOf(ValidationException.class);
+        assertThat(cache.getHits()).isEqualTo(0);
+    }
+
+    @Test
+    public void testResultCacheEvicts() {
+        ResultCache cache = new ResultCache(1);
+        Demo toC = Demo.of(Algorithm.BFS, SIMPLE_GRAPH, Node.of("A"), Node.of("C"));
+        Demo toB = Demo.of(Algorithm.BFS, SIMPLE_GRAPH, Node.of("A"), Node.of("B"));
+        cache.execute(toC);
+        cache.execute(toB);
+        cache.execute(toC);
+        assertThat(cache.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    public void testDynamicShortestPaths() {
+        GraphIndex index = GraphIndex.of(WEIGHTED_GRAPH);
+        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(index, Node.of("A"));
+        while (Interpreter.search(dijkstraSnapshot) != null) {
+        }
+        DynamicGraph graph = DynamicGraph.of(index);
+        DynamicShortestPaths paths = DynamicShortestPaths.of(graph, dijkstraSnapshot);
+        assertThat(paths.getDist(Node.of("E"))).isEqualTo(3.5);
+
+        graph.removeEdge(graph.find(Node.of("D"), Node.of("E"), 2));
+        assertThat(paths.getDist(Node.of("E"))).isEqualTo(5.0);
+        assertThat(paths.pathTo(Node.of("E"))).containsExactly(edge("A", "C", 4), edge("C", "E", 1));
+
+        int shortcut = graph.addEdge(Node.of("A"), Node.of("E"), 1);
+        assertThat(paths.getDist(Node.of("E"))).isEqualTo(1.0);
+        graph.setWeight(shortcut, 9);
+        assertThat(paths.getDist(Node.of("E"))).isEqualTo(5.0);
+        assertThat(paths.getDist(Node.of("F"))).isEqualTo(4.5);
+    }
+
+    @Test
+    public void testDynamicShortestPathsFinishesRun() {
+        // the run stops on B without relaxing B to C, and nothing else is queued by then
+        GraphIndex index = GraphIndex.of(Parser.parseGraph("{graph {A B C} {{A to B 1} {B to C 1}}}"));
+        DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(index, Node.of("A"), Node.of("B"));
+        while (!dijkstraSnapshot.isDone()) {
+            dijkstraSnapshot.step();
+        }
+        DynamicGraph graph = DynamicGraph.of(index);
+        DynamicShortestPaths paths = DynamicShortestPaths.of(graph, dijkstraSnapshot);
+        assertThat(paths.getDist(Node.of("C"))).isEqualTo(2.0);
+        assertThat(paths.pathTo(Node.of("C"))).containsExactly(edge("A", "B", 1), edge("B", "C", 1));
+
+        assertThatThrownBy(() -> graph.addEdge(Node.of("A"), Node.of("C"), -1))
+                .isInstanceOf(InterpreterException.class);
+    }
+
+    @Test
+    public void testDynamicSpanningForest() {
+        KruskalSnapshot kruskalSnapshot = new KruskalSnapshot(GraphIndex.of(UNDIRECTED_GRAPH));
+        while (!kruskalSnapshot.isDone()) {
+            kruskalSnapshot.step();
+        }
+        DynamicGraph graph = DynamicGraph.of(UNDIRECTED_GRAPH);
+        DynamicSpanningForest forest = DynamicSpanningForest.of(graph, kruskalSnapshot.getChosenEdges());
+        assertThat(forest.getWeight()).isEqualTo(10.5);
+
+        // cutting C and E off leaves two trees
+        graph.removeEdge(graph.find(Node.of("D"), Node.of("E"), 2));
+        graph.removeEdge(graph.find(Node.of("E"), Node.of("D"), 2));
+        assertThat(forest.getWeight()).isEqualTo(8.5);
+
+        graph.addEdge(Node.of("B"), Node.of("C"), 0.5);
+        assertThat(forest.getTree()).contains(edge("B", "C", 0.5), edge("C", "B", 0.5));
+        assertThat(forest.getWeight()).isEqualTo(9.0);
+
+        // a cheaper edge on the cycle A-B-C-E-... replaces the heaviest tree edge, A-B
+        graph.addEdge(Node.of("E"), Node.of("D"), 1);
+        assertThat(forest.getTree()).doesNotContain(edge("A", "B", 3));
+        assertThat(forest.getWeight()).isEqualTo(7.0);
+    }
+
+    @Test
+    public void testTraceSearch() {
+        EventLog log = new EventLog(CompactGraph.of(GRAPH));
+        Interpreter.trace(Demo.of(Algorithm.BFS, GRAPH, Node.of("A"), Node.of("E")), log);
+        assertThat(log.events).containsExactly(
+                "visit A", "pause 3000", "leave A", "visit B", "pause 3000", "leave B", "visit D", "pause 3000",
+                "leave D", "visit C", "pause 3000", "leave C", "visit F", "pause 3000", "leave F", "found E",
+                "pause 3000");
+    }
+
+    @Test
+    public void testTraceSpanningTree() {
+        Trace trace = Interpreter.trace(Demo.of(Algorithm.KRUSKALS, UNDIRECTED_GRAPH, Node.of("A"), null));
+        EventLog log = new EventLog(trace.getGraph());
+        trace.replay(log);
+        // both directions of an edge are shown together
+        assertThat(log.events).startsWith("add C->E", "add E->C", "pause 1000", "add A->D", "add D->A", "pause 1000");
+        assertThat(log.events).hasSize(16);
+    }
+
+    @Test
+    public void testTraceRoundTrip() throws Exception {
+        Graph graph = Parser.parseGraph("{graph {{A 0 0} {B 1 0} {C 2 0}} {{A to B 3} {B to C 1} {A to C 5}}}");
+        Trace trace = Interpreter.trace(Demo.of(Algorithm.DIJKSTRAS, graph, Node.of("A"), Node.of("C")));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trace.write(bytes);
+        Trace copy = Trace.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertThat(copy.getAlgorithm()).isEqualTo(Algorithm.DIJKSTRAS);
+        assertThat(copy.getGraph().toGraph()).isEqualTo(graph);
+        assertThat(copy.getGraph().x(copy.getGraph().id("C"))).isEqualTo(2.0);
+        EventLog log = new EventLog(copy.getGraph());
+        copy.replay(log);
+        assertThat(log.events).containsExactly(
+                "add A->B", "pause 1000", "add A->C", "pause 1000",
+                "remove A->C", "add B->C", "pause 1000",
+                "found C", "choose B->C", "choose A->B", "pause 3000");
+        assertThat(copy.size()).isEqualTo(trace.size());
+    }
+
+    @Test
+    public void testTraceRelaxationOrder() {
+        // the cheaper parallel edge replaces the dearer one within the same step, so the dearer one ends up removed
+        Graph graph = Parser.parseGraph("{graph {A B} {{A to B 5} {A to B 3}}}");
+        EventLog log = new EventLog(CompactGraph.of(graph));
+        Interpreter.trace(Demo.of(Algorithm.DIJKSTRAS, graph, Node.of("A"), Node.of("B")), log);
+        assertThat(log.events).containsExactly(
+                "add A->B", "pause 1000", "remove A->B", "add A->B", "pause 1000",
+                "found B", "choose A->B", "pause 3000");
+    }
+
+    @Test
+    public void testViewerBatchesChanges() {
+        org.graphstream.graph.Graph shown = new SingleGraph("Graph");
+        TraceViewer viewer = new TraceViewer(shown, CompactGraph.of(WEIGHTED_GRAPH), 1e9);
+        List<String> updates = new ArrayList<>();
+        shown.addAttributeSink(new SinkAdapter() {
+            @Override
+            public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+                updates.add(edgeId + "=" + value);
+            }
+
+            @Override
+            public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute,
+                                             Object oldValue, Object newValue) {
+                updates.add(edgeId + "=" + newValue);
+            }
+
+            @Override
+            public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+                updates.add(edgeId + " plain");
+            }
+        });
+        viewer.edgeAdded(0);
+        viewer.edgeAdded(1);
+        viewer.edgeRemoved(1);
+        viewer.edgeChosen(0);
+        assertThat(updates).isEmpty();
+        viewer.pause(3000);
+        // only the net change of each edge is shown
+        assertThat(updates).containsExactly("AB=chosen");
+        viewer.edgeChosen(0);
+        viewer.edgeRemoved(0);
+        viewer.pause(3000);
+        assertThat(updates).containsExactly("AB=chosen", "AB plain");
+    }
+
+    @Test
+    public void testSnapshotSink() {
+        GraphIndex index = GraphIndex.of(UNDIRECTED_GRAPH);
+        EventLog log = new EventLog(CompactGraph.of(UNDIRECTED_GRAPH));
+        Snapshot dijkstraSnapshot = new DijkstraSnapshot(index, Node.of("A"), Node.of("E"));
+        dijkstraSnapshot.setSink(log);
+        while (!dijkstraSnapshot.isDone()) {
+            dijkstraSnapshot.step();
+        }
+        assertThat(log.events).containsExactly("add A->B", "add A->D", "add D->E", "add D->F", "found E",
+                "choose D->E", "choose A->D");
+
+        // once set up, stepping allocates nothing, so a long run doesn't churn the heap
+        StringBuilder edges = new StringBuilder();
+        for (int i = 0; i < 999; i++) {
+            edges.append(" {N").append(i).append(" to N").append(i + 1).append(" ").append(i % 7)
+                    .append("} {N").append(i + 1).append(" to N").append(i).append(" ").append(i % 7).append("}");
+        }
+        Graph graph = Parser.parseGraph("{graph {" + IntStream.range(0, 1000).mapToObj(i -> "N" + i)
+                .collect(Collectors.joining(" ")) + "} {" + edges + "}}");
+        GraphIndex ring = GraphIndex.of(graph);
+        for (int round = 0; round < 2; round++) {
+            for (Snapshot snapshot : new Snapshot[] {new BfsSnapshot(ring, Node.of("N0"), null),
+                    new DfsSnapshot(ring, Node.of("N0"), null), new DijkstraSnapshot(ring, Node.of("N0")),
+                    new PrimSnapshot(ring, Node.of("N0")), new KruskalSnapshot(ring)}) {
+                long allocated = allocatedBytes();
+                int steps = 0;
+                while (!snapshot.isDone()) {
+                    snapshot.step();
+                    steps++;
+                }
+                assertThat(steps).isGreaterThanOrEqualTo(999);
+                if (round == 1 && allocated != -1) {
+                    assertThat(allocatedBytes() - allocated).as(snapshot.getClass().getSimpleName())
+                            .isLessThan(steps);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMappedGraphFile() throws Exception {
+        Graph graph = Parser.parseGraph("{graph {{A 0 0} B {C 3 4} D E F} "
+                + "{{A <-> B 3} {A <-> D 1.5} {C <-> E 1} {D <-> E 2} {D <-> F 3}}}");
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            GraphFile.write(graph, file);
+            GraphIndex mapped = GraphFile.map(file);
+            GraphIndex heap = GraphIndex.of(graph);
+            assertThat(mapped.size()).isEqualTo(6);
+            assertThat(mapped.id(Node.of("E"))).isEqualTo(heap.id(Node.of("E")));
+            assertThat(mapped.id(Node.of("G"))).isEqualTo(-1);
+            assertThat(mapped.x(mapped.id(Node.of("C")))).isEqualTo(3.0);
+            assertThat(mapped.y(mapped.id(Node.of("B")))).isNaN();
+            assertThat(mapped.getGraph().toGraph()).isEqualTo(graph);
+
+            DijkstraSnapshot dijkstraSnapshot = new DijkstraSnapshot(mapped, Node.of("A"));
+            while (Interpreter.search(dijkstraSnapshot) != null) {
+            }
+            assertThat(dijkstraSnapshot.getDist(Node.of("C"))).isEqualTo(4.5);
+            KruskalSnapshot kruskalSnapshot = new KruskalSnapshot(mapped);
+            while (!kruskalSnapshot.isDone()) {
+                kruskalSnapshot.step();
+            }
+            assertThat(kruskalSnapshot.getChosenEdges()).isEqualTo(
+                    Interpreter.execute(Demo.of(Algorithm.KRUSKALS, graph, Node.of("A"), null)).getEdges());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testOffHeapGraph() {
+        Graph graph = Parser.parseGraph("{graph {{A 0 0} B {C 3 4} D E F} "
+                + "{{A <-> B 3} {A <-> D 1.5} {C <-> E 1} {D <-> E 2} {D <-> F 3} {B <-> C 7}}}");
+        GraphIndex offHeap = OffHeapGraph.of(graph);
+        assertThat(offHeap.id(Node.of("F"))).isEqualTo(5);
+        assertThat(offHeap.id(Node.of("G"))).isEqualTo(-1);
+        assertThat(offHeap.x(offHeap.id(Node.of("C")))).isEqualTo(3.0);
+        assertThat(offHeap.getGraph().toGraph()).isEqualTo(graph);
+
+        GraphSession session = GraphSession.of(offHeap);
+        for (Algorithm algorithm : new Algorithm[]{Algorithm.BFS, Algorithm.DFS, Algorithm.DIJKSTRAS, Algorithm.PRIMS,
+                Algorithm.KRUSKALS}) {
+            Execution onHeap = Interpreter.execute(Demo.of(algorithm, graph, Node.of("A"), Node.of("C")));
+            Execution execution = session.execute(Query.of(algorithm, Node.of("A"), Node.of("C")));
+            assertThat(execution.getSteps()).isEqualTo(onHeap.getSteps());
+            assertThat(execution.getEdges()).isEqualTo(onHeap.getEdges());
+        }
+
+        // names far beyond the initial buffers, streamed in without a graph on the heap
+        OffHeapGraph.Builder builder = OffHeapGraph.builder();
+        for (int i = 0; i < 10_000; i++) {
+            builder.addEdge(builder.intern("N" + i), builder.intern("N" + (i + 1) % 10_000), i);
+        }
+        GraphIndex ring = builder.build();
+        assertThat(ring.size()).isEqualTo(10_000);
+        assertThat(ring.node(ring.target(ring.begin(ring.id(Node.of("N9999")))))).isEqualTo(Node.of("N0"));
+        assertThatThrownBy(() -> builder.intern("N0")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test(expected = InterpreterException.class)
+    public void testExecuteValidates() {
+        Interpreter.execute(Demo.of(Algorithm.BFS, SIMPLE_GRAPH, Node.of("E"), Node.of("A")));
+    }
+
+    @Test
+    public void testValidationReport() {
+        Graph graph = Parser.parseGraph("{graph {A B C A} {{A to B 1} {B to A 1} {A to B 1} {B to D 2} {E to D} {C to C 3}}}");
+        ValidationReport report = Interpreter.validate(Demo.of(Algorithm.PRIMS, graph, Node.of("D"), null));
+        assertThat(report.getProblems()).extracting(ValidationReport.Problem::getKind).containsExactly(
+                ValidationReport.Kind.DUPLICATE_NODE,
+                ValidationReport.Kind.DUPLICATE_EDGE,
+                ValidationReport.Kind.MISSING_NODE,
+                ValidationReport.Kind.MISSING_NODE,
+                ValidationReport.Kind.MISSING_WEIGHT,
+                ValidationReport.Kind.MISSING_REVERSE_EDGE,
+                ValidationReport.Kind.MISSING_REVERSE_EDGE,
+                ValidationReport.Kind.MISSING_START);
+        assertThat(report.getProblems().get(3)).isEqualTo(ValidationReport.Problem.of(
+                ValidationReport.Kind.MISSING_NODE, Node.of("E"), Edge.of(Node.of("E"), Node.of("D"), null)));
+        assertThat(report.getProblems().get(5).toString()).isEqualTo("Edge {B to D 2.0} has no reverse edge");
+
+        assertThatThrownBy(() -> Interpreter.execute(Demo.of(Algorithm.PRIMS, graph, Node.of("D"), null)))
+                .isInstanceOf(ValidationException.class)
+                .matches(e -> ((ValidationException) e).getReport().equals(report));
+        assertThat(Interpreter.validate(Demo.of(Algorithm.BFS, UNDIRECTED_GRAPH, Node.of("A"), null)).isValid()).isTrue();
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        List<QueryStats> queries = new ArrayList<>();
+        MetricsReporter reporter = new MetricsReporter() {
+            @Override
+            public void queryFinished(QueryStats stats) {
+                queries.add(stats);
+            }
+        };
+        Metrics.reset();
+        Interpreter.execute(Demo.of(Algorithm.BFS, GRAPH, Node.of("A"), Node.of("F")));
+        assertThat(Metrics.getCount(Phase.RUN)).isZero(); // disabled
+
+        Metrics.setEnabled(true);
+        Metrics.addReporter(reporter);
+        try {
+            Interpreter.execute("{do BFS on {graph {A B C D E F} {{A to B} {A to D} {A to C} {C to E} {D to F}}} from A to F}");
+            Interpreter.execute(Demo.of(Algorithm.KRUSKALS, UNDIRECTED_GRAPH, Node.of("A"), null));
+            Interpreter.execute(Demo.of(Algorithm.DELTA_STEPPING, WEIGHTED_GRAPH, Node.of("A"), null));
+            Interpreter.execute(Demo.of(Algorithm.A_STAR, WEIGHTED_GRAPH, Node.of("A"), Node.of("E")));
+        } finally {
+            Metrics.removeReporter(reporter);
+            Metrics.setEnabled(false);
+        }
+        for (Phase phase : new Phase[] {Phase.PARSE, Phase.VALIDATE, Phase.INDEX}) {
+            assertThat(Metrics.getCount(phase)).isGreaterThanOrEqualTo(1);
+        }
+        assertThat(Metrics.getCount(Phase.RUN)).isEqualTo(4);
+        assertThat(Metrics.getMaxNanos(Phase.RUN)).isPositive();
+
+        // expands A, B, D and C, stopping at F; B, D and C wait in the queue together
+        QueryStats bfs = queries.get(0);
+        assertThat(bfs.getAlgorithm()).isEqualTo(Algorithm.BFS);
+        assertThat(bfs.getNodesExpanded()).isEqualTo(4);
+        assertThat(bfs.getEdgesRelaxed()).isEqualTo(5);
+        assertThat(bfs.getMaxQueueSize()).isEqualTo(3);
+        assertThat(queries.get(1).getEdgesRelaxed()).isEqualTo(9); // stops once {D to F} joins the last tree
+        // the first bucket settles A and D, leaving B, C, E and F queued in later buckets
+        assertThat(queries.get(2).getMaxQueueSize()).isEqualTo(4);
+        // without coordinates A* expands like Dijkstra's: once D is expanded, B, C, E and F are queued
+        assertThat(queries.get(3).getMaxQueueSize()).isEqualTo(4);
+        assertThat(Metrics.getQueries(Algorithm.BFS)).isEqualTo(1);
+
+        Metrics.registerMBean();
+        Metrics.registerMBean();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled")).isEqualTo(false);
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Queries")).isNotNull();
+        Metrics.reset();
+    }
+
+    /**
+     * Writes down trace events by node and edge name
+     */
+    private static class EventLog implements TraceSink {
+        final CompactGraph graph;
+        final List<String> events = new ArrayList<>();
+
+        EventLog(CompactGraph graph) {
+            this.graph = graph;
+        }
+
+        private String edge(int edge) {
+            return graph.node(graph.start(edge)).getName() + "->" + graph.node(graph.end(edge)).getName();
+        }
+
+        @Override
+        public void nodeVisited(int node) {
+            events.add("visit " + graph.node(node).getName());
+        }
+
+        @Override
+        public void nodeLeft(int node) {
+            events.add("leave " + graph.node(node).getName());
+        }
+
+        @Override
+        public void nodeFound(int node) {
+            events.add("found " + graph.node(node).getName());
+        }
+
+        @Override
+        public void edgeAdded(int edge) {
+            events.add("add " + edge(edge));
+        }
+
+        @Override
+        public void edgeRemoved(int edge) {
+            events.add("remove " + edge(edge));
+        }
+
+        @Override
+        public void edgeChosen(int edge) {
+            events.add("choose " + edge(edge));
+        }
+
+        @Override
+        public void pause(int millis) {
+            events.add("pause " + millis);
+        }
+    }
+
+    private static String visitOrder(Execution execution) {
+        return execution.getSteps().stream()
+                .map(step -> step.getCurrent().getName())
+                .collect(Collectors.joining());
+    }
+
+    private static Edge edge(String start, String end, double weight) {
+        return Edge.of(Node.of(start), Node.of(end), weight);
+    }
+
+    /**
+     * Bytes the current thread has allocated so far, -1 if the JVM doesn't keep count
+     */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * A builder with the nodes N0 to N(size - 1) declared, in order, and no edges yet
+     */
+    private static CompactGraph.Builder numberedGraph(int size) {
+        CompactGraph.Builder builder = CompactGraph.builder();
+        for (int i = 0; i < size; i++) {
+            builder.declare(builder.intern("N" + i));
+        }
+        return builder;
+    }
 }
@@ -4,9 +4,18 @@ import com.google.common.collect.ImmutableList;
 import model.*;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 public class ParserTest {
 
@@ -89,6 +98,11 @@ public class ParserTest {
         Parser.parseGraph(demo);
     }
 
+    @Test(expected = ParsingException.class)
+    public void testParseGraphAlgorithmAsNode() {
+        Parser.parseGraph("{graph {A A_STAR} {{A to A_STAR}}}");
+    }
+
     @Test
     public void testEdgeParseBidirectional() {
         assertThat(Parser.parseEdge("{A to B}").get(0)).isEqualTo(A_TO_B);
@@ -99,4 +113,156 @@ public class ParserTest {
         List<Edge> e1 = ImmutableList.of(Edge.of(A, B, null), Edge.of(B, A, null), Edge.of(C, A, null));
         assertThat(Parser.parseEdges("{{A <-> B} {C to A}}")).isEqualTo(e1);
     }
+
+    @Test
+    public void testDemoNothing() {
+        Demo expected = Demo.of(Algorithm.NOTHING, GRAPH, null, null);
+        assertThat(Parser.parse("{do NOTHING on {graph {A B C} {{A to B} {B to C} {C to A}}}}")).isEqualTo(expected);
+    }
+
+    @Test(expected = ParsingException.class)
+    public void testDemoMissingEndpoints() {
+        Parser.parse("{do BFS on {graph {A B C} {{A to B} {B to C} {C to A}}}}");
+    }
+
+    @Test
+    public void testDemoMultiline() {
+        String demo = "{do BFS on\n  {graph {A B C}\n    {{A to B}\n     {B to C}   {C to A}}}\n  from A to C}";
+        assertThat(Parser.parse(demo)).isEqualTo(Demo.of(Algorithm.BFS, GRAPH, A, C));
+    }
+
+    @Test
+    public void testBidirectionalWeighted() {
+        assertThat(Parser.parseEdge("{A <-> B 2.5}")).containsExactly(Edge.of(A, B, 2.5), Edge.of(B, A, 2.5));
+    }
+
+    @Test
+    public void testErrorPosition() {
+        assertThatThrownBy(() -> Parser.parse("{do BFS on {graph {A B C}\n {{A to B} {B foo C}}} from A to C}"))
+                .isInstanceOf(ParsingException.class)
+                .hasMessageContaining("'foo'")
+                .matches(e -> ((ParsingException) e).getLine() == 2 && ((ParsingException) e).getColumn() == 15);
+    }
+
+    @Test
+    public void testNodeCoordinates() {
+        Graph graph = Parser.parseGraph("{graph {{A 0 1.5} B {C -2 3}} {{A to B}}}");
+        assertThat(graph.getNodes()).containsExactly(Node.of("A"), Node.of("B"), Node.of("C"));
+        CompactGraph compact = CompactGraph.of(graph);
+        assertThat(compact.x(compact.id("A"))).isEqualTo(0.0);
+        assertThat(compact.y(compact.id("A"))).isEqualTo(1.5);
+        assertThat(compact.x(compact.id("B"))).isNaN();
+        assertThat(compact.x(compact.id("C"))).isEqualTo(-2.0);
+    }
+
+    @Test(expected = ParsingException.class)
+    public void testMissingCoordinate() {
+        Parser.parseGraph("{graph {{A 0}} {}}");
+    }
+
+    @Test(expected = ParsingException.class)
+    public void testMalformedCost() {
+        Parser.parseEdge("{A to B 1.2.3}");
+    }
+
+    @Test(expected = ParsingException.class)
+    public void testReservedNode() {
+        Parser.parseNodes("{A to C}");
+    }
+
+    @Test(expected = ParsingException.class)
+    public void testTrailingInput() {
+        Parser.parseGraph("{graph {A B C} {}} {A}");
+    }
+
+    @Test
+    public void testLargeGraph() {
+        int size = 200_000;
+        StringBuilder nodes = new StringBuilder();
+        StringBuilder edges = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            nodes.append('N').append(i).append(' ');
+            edges.append("{N").append(i).append(" to N").append((i + 1) % size).append(' ').append(i).append("} ");
+        }
+        Graph graph = Parser.parseGraph("{graph {" + nodes + "} {" + edges + "}}");
+        assertThat(graph.getNodes()).hasSize(size);
+        assertThat(graph.getEdges()).hasSize(size);
+        assertThat(graph.getEdges().get(size - 1)).isEqualTo(Edge.of(Node.of("N" + (size - 1)), Node.of("N0"), size - 1.0));
+    }
+
+    @Test
+    public void testParseReader() throws IOException {
+        // hand out one character per read so tokens straddle every buffer refill
+        Reader reader = new StringReader("{do BFS on {graph {A B C} {{A to B} {B to C} {C to A}}} from A to C}") {
+            @Override
+            public int read(char[] chars, int offset, int length) throws IOException {
+                return super.read(chars, offset, Math.min(length, 1));
+            }
+        };
+        assertThat(Parser.parse(reader)).isEqualTo(Demo.of(Algorithm.BFS, GRAPH, A, C));
+    }
+
+    @Test
+    public void testParsePath() throws IOException {
+        Path path = Files.createTempFile("graph-dsl", ".txt");
+        try {
+            Files.write(path, "{do BFS on {graph {A B C}\n{{A to B} {B to C} {C to A}}}\nfrom A to C}".getBytes(StandardCharsets.US_ASCII));
+            assertThat(Parser.parse(path)).isEqualTo(Demo.of(Algorithm.BFS, GRAPH, A, C));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testGraphIsCompact() {
+        Graph graph = Parser.parseGraph("{graph {A B C} {{A to B 1} {B <-> C}}}");
+        CompactGraph compact = CompactGraph.of(graph);
+        assertThat(CompactGraph.of(graph)).isSameAs(compact);
+        assertThat(compact.edgeCount()).isEqualTo(3);
+        assertThat(compact.start(2)).isEqualTo(compact.id("C"));
+        assertThat(compact.weight(0)).isEqualTo(1.0);
+        assertThat(compact.weight(1)).isNaN();
+        assertThat(graph.getEdges().get(1)).isEqualTo(B_TO_C);
+        assertThat(graph.getNodes().get(0)).isSameAs(graph.getEdges().get(0).getStart());
+    }
+
+    @Test
+    public void testParseParallel() {
+        StringBuilder program = new StringBuilder("{do DIJKSTRAS on {graph {N0 N1 N2} {");
+        for (int i = 0; i < 2000; i++) {
+            program.append(i % 3 == 0 ? "{N" : "\n{N").append(i % 500).append(i % 7 == 0 ? " <-> N" : " to N")
+                    .append((i * 31) % 500).append(i % 2 == 0 ? " " + i + ".5}" : "}");
+        }
+        program.append("}} from N0 to N499}");
+        Demo sequential = Parser.parse(program.toString());
+        Demo parallel = Parser.parseParallel(program.toString(), ForkJoinPool.commonPool(), 100);
+        assertThat(parallel).isEqualTo(sequential);
+        // names are interned in the same order too
+        CompactGraph compact = CompactGraph.of(parallel.getGraph());
+        for (int id = 0; id < compact.nameCount(); id++) {
+            assertThat(compact.node(id)).isEqualTo(CompactGraph.of(sequential.getGraph()).node(id));
+        }
+    }
+
+    @Test
+    public void testParseParallelErrors() {
+        StringBuilder edges = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            edges.append("{A to B ").append(i).append("}\n");
+        }
+        String[] programs = {
+                "{do BFS on {graph {A B} {" + edges + "{A to B x}" + edges + "}} from A to B}",
+                "{do BFS on {graph {A B} {" + edges + "{A to {B}}" + edges + "}} from A to B}",
+                "{do BFS on {graph {A B} {" + edges + "{A to to}" + edges + "}} from A to B}",
+                "{do BFS on {graph {A B} {" + edges + "{A to B}} from A to B}",
+                "{do BFS on {graph {A B} {" + edges + "}} from A to B} B",
+                "{do BFS on {graph {A B} {" + edges + "} from A to B}"};
+        for (String program : programs) {
+            Throwable expected = catchThrowable(() -> Parser.parse(program));
+            assertThat(expected).isInstanceOf(ParsingException.class);
+            assertThatThrownBy(() -> Parser.parseParallel(program, ForkJoinPool.commonPool(), 50))
+                    .isInstanceOf(ParsingException.class)
+                    .hasMessage(expected.getMessage());
+        }
+    }
 }